@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.smoofyuniverse.maze.bench;
+
+import net.smoofyuniverse.maze.gen.Algorithm;
+import net.smoofyuniverse.maze.gen.MazeGenerator;
+import net.smoofyuniverse.maze.gen.MazeStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AlgorithmBenchmark {
+	@Param({"100", "1000", "4000"})
+	public int size;
+
+	@Param({"KRUSKAL", "BACKTRACKER", "PRIM", "WILSON", "BINARY_TREE", "SIDEWINDER"})
+	public Algorithm algorithm;
+
+	private MazeGenerator generator;
+	private MazeStore store;
+	private long seed;
+
+	@Setup(Level.Trial)
+	public void allocate() {
+		this.generator = MazeGenerator.of(this.algorithm);
+		this.store = this.generator.createStore(this.size, this.size);
+	}
+
+	@Benchmark
+	public MazeStore generate(CellCounter counter) {
+		this.generator.generate(this.store, new SplittableRandom(this.seed++), null);
+		counter.cells += this.store.size;
+		return this.store;
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.bench;
+
+import net.smoofyuniverse.maze.gen.Maze;
+import net.smoofyuniverse.maze.gen.TiledGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GenerationBenchmark {
+	@Param({"100", "1000", "10000"})
+	public int size;
+
+	@Param({"0", "0.1", "1"})
+	public double errorFactor;
+
+	@Param({"true"})
+	public boolean compact;
+
+	private Maze maze;
+	private long seed;
+
+	@Setup(Level.Trial)
+	public void allocate() {
+		this.maze = new Maze(this.size, this.size, this.compact);
+	}
+
+	@Setup(Level.Invocation)
+	public void fill() {
+		this.maze.fill();
+		this.seed++;
+	}
+
+	@Benchmark
+	public Maze connectAll(CellCounter counter) {
+		this.maze.connectAll(new Random(this.seed), this.errorFactor);
+		counter.cells += this.maze.size;
+		return this.maze;
+	}
+
+	@Benchmark
+	public Maze tiled(CellCounter counter) {
+		TiledGenerator.of(this.maze).generate(this.seed, this.errorFactor);
+		counter.cells += this.maze.size;
+		return this.maze;
+	}
+
+	@Benchmark
+	public Maze tiledSequential(CellCounter counter) {
+		TiledGenerator.of(this.maze).generate(this.seed, this.errorFactor, null);
+		counter.cells += this.maze.size;
+		return this.maze;
+	}
+}
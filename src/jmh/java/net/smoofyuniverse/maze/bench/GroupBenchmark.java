@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.bench;
+
+import net.smoofyuniverse.maze.gen.Maze;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Group.append and Group.top through the Point objects of a non compact maze
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GroupBenchmark {
+	@Param({"100", "1000"})
+	public int size;
+
+	private Maze maze;
+	private int[] pairs;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.maze = new Maze(this.size, this.size);
+		this.pairs = UnionFindBenchmark.neighbourPairs(this.size);
+	}
+
+	@Setup(Level.Invocation)
+	public void fill() {
+		this.maze.fill();
+	}
+
+	@Benchmark
+	public void appendAndTop(CellCounter counter, Blackhole blackhole) {
+		Maze.Point[] points = this.maze.points;
+		for (int i = 0; i < this.pairs.length; i += 2) {
+			Maze.Point a = points[this.pairs[i]], b = points[this.pairs[i + 1]];
+			blackhole.consume(a.append(b));
+			blackhole.consume(a.top());
+		}
+		counter.cells += this.pairs.length >>> 1;
+	}
+}
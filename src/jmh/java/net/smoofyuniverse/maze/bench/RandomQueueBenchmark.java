@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.bench;
+
+import net.smoofyuniverse.maze.gen.IntRandomQueue;
+import net.smoofyuniverse.maze.gen.RandomQueue;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RandomQueueBenchmark {
+	@Param({"10000", "1000000", "10000000"})
+	public int size;
+
+	private RandomQueue<Integer> queue;
+	private IntRandomQueue intQueue, splittableQueue;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Integer[] values = new Integer[this.size];
+		for (int i = 0; i < values.length; i++)
+			values[i] = i;
+		this.queue = new RandomQueue<>(values, new Random(0));
+		this.intQueue = new IntRandomQueue(this.size, new Random(0));
+		this.splittableQueue = new IntRandomQueue(this.size, new SplittableRandom(0));
+	}
+
+	@Benchmark
+	public Integer next() {
+		return this.queue.next();
+	}
+
+	@Benchmark
+	public int nextInt() {
+		return this.intQueue.next();
+	}
+
+	@Benchmark
+	public int nextSplittable() {
+		return this.splittableQueue.next();
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.bench;
+
+import net.smoofyuniverse.maze.gen.Maze;
+import net.smoofyuniverse.maze.gen.RegionGenerator;
+import net.smoofyuniverse.maze.gen.TiledGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+// Regions of a 4000x4000 maze carved again, the cost should follow the region and not the maze.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RegionBenchmark {
+	private static final int SIZE = 4000;
+
+	@Param({"50", "200", "800"})
+	public int side;
+
+	private Maze maze;
+	private RegionGenerator generator;
+	private BufferedImage image;
+	private long seed;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.maze = new Maze(SIZE, SIZE, true);
+		this.maze.fill();
+		TiledGenerator.of(this.maze).generate(0, 0);
+		this.generator = new RegionGenerator(this.maze);
+		this.image = this.maze.createImage(2, 1);
+	}
+
+	@Benchmark
+	public Maze generate(CellCounter counter) {
+		int offset = (SIZE - this.side) / 2;
+		this.generator.generate(offset, offset, this.side, this.side, this.seed++, 0);
+		counter.cells += (long) this.side * this.side;
+		return this.maze;
+	}
+
+	@Benchmark
+	public BufferedImage render(CellCounter counter) {
+		int offset = (SIZE - this.side) / 2;
+		counter.cells += (long) this.side * this.side;
+		return this.maze.createImage(2, 1, this.image, offset, offset, this.side, this.side);
+	}
+}
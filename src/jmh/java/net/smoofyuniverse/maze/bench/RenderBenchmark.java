@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.bench;
+
+import net.smoofyuniverse.maze.gen.Maze;
+import net.smoofyuniverse.maze.gen.PngRowSink;
+import net.smoofyuniverse.maze.gen.SvgRowSink;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RenderBenchmark {
+	@Param({"100", "1000", "10000"})
+	public int size;
+
+	// whitePx:blackPx
+	@Param({"1:1", "2:1", "4:1", "10:2"})
+	public String pixels;
+
+	private Maze maze;
+	private int whitePx, blackPx;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		String[] px = this.pixels.split(":");
+		this.whitePx = Integer.parseInt(px[0]);
+		this.blackPx = Integer.parseInt(px[1]);
+
+		this.maze = new Maze(this.size, this.size, true);
+		this.maze.fill();
+		this.maze.connectAll(new Random(0), 0);
+	}
+
+	@Benchmark
+	public BufferedImage createImage(CellCounter counter) {
+		counter.cells += this.maze.size;
+		return this.maze.createImage(this.whitePx, this.blackPx);
+	}
+
+	@Benchmark
+	public BufferedImage createImageParallel(CellCounter counter) {
+		counter.cells += this.maze.size;
+		return this.maze.createImageParallel(this.whitePx, this.blackPx);
+	}
+
+	@Benchmark
+	public long png(CellCounter counter) throws IOException {
+		NullChannel channel = new NullChannel();
+		try (PngRowSink png = new PngRowSink(channel, this.maze.width, this.maze.height, this.whitePx, this.blackPx)) {
+			this.maze.writeRows(png);
+			png.finish();
+		}
+		counter.cells += this.maze.size;
+		return channel.written;
+	}
+
+	@Benchmark
+	public long svg(CellCounter counter) throws IOException {
+		NullChannel channel = new NullChannel();
+		SvgRowSink svg = new SvgRowSink(channel, this.maze.width, this.maze.height, this.whitePx, this.blackPx);
+		this.maze.writeRows(svg);
+		svg.finish();
+		counter.cells += this.maze.size;
+		return channel.written;
+	}
+
+	private static final class NullChannel implements WritableByteChannel {
+		private long written;
+
+		@Override
+		public int write(ByteBuffer src) {
+			int n = src.remaining();
+			src.position(src.limit());
+			this.written += n;
+			return n;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {}
+	}
+}
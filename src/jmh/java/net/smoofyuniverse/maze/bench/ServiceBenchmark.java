@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.bench;
+
+import net.smoofyuniverse.maze.gen.MazeService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Load test of MazeService: concurrent callers wait for mazes drawn from a size distribution.
+// SampleTime reports the latency percentiles (p0.50, p0.99...), Throughput the requests per second.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Threads(16)
+@Fork(1)
+public class ServiceBenchmark {
+	// small: 31x31 only, mixed: mostly 11x11 to 101x101, sometimes 300x300 and rarely 1500x1500
+	@Param({"small", "mixed"})
+	public String distribution;
+
+	private MazeService service;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.service = new MazeService();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.service.close();
+	}
+
+	@State(Scope.Thread)
+	public static class Caller {
+		public final SplittableRandom random = new SplittableRandom();
+	}
+
+	@Benchmark
+	public int png(Caller caller) {
+		int size = size(caller.random);
+		return this.service.png(size, size, 4, 2, caller.random.nextLong(), 0).join().length;
+	}
+
+	@Benchmark
+	public int walls(Caller caller) {
+		int size = size(caller.random);
+		return this.service.walls(size, size, caller.random.nextLong(), 0).join().size;
+	}
+
+	private int size(SplittableRandom random) {
+		if (this.distribution.equals("small"))
+			return 31;
+
+		int p = random.nextInt(1000);
+		if (p == 0)
+			return 1500;
+		if (p < 50)
+			return 300;
+		return 11 + random.nextInt(91);
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.bench;
+
+import net.smoofyuniverse.maze.gen.Maze;
+import net.smoofyuniverse.maze.gen.MazeWorker;
+import net.smoofyuniverse.maze.gen.PngEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Many small mazes, as requested by a web service. Run with -prof gc to compare the allocation rates.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SmallMazeBenchmark {
+	@Param({"5", "31", "101"})
+	public int size;
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+	private MazeWorker worker;
+	private long seed;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.worker = new MazeWorker(this.size, this.size, 4, 2);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.worker.close();
+	}
+
+	@Benchmark
+	public int fresh() throws IOException {
+		Maze maze = new Maze(this.size, this.size);
+		maze.fill();
+		maze.connectAll(new Random(this.seed++), 0);
+		this.out.reset();
+		ImageIO.write(maze.createImage(4, 2), "png", this.out);
+		return this.out.size();
+	}
+
+	@Benchmark
+	public int freshEncoder() throws IOException {
+		Maze maze = new Maze(this.size, this.size, true);
+		maze.fill();
+		maze.connectAll(this.seed++, 0);
+		this.out.reset();
+		try (PngEncoder encoder = new PngEncoder()) {
+			encoder.write(maze.createImage(4, 2), this.out);
+		}
+		return this.out.size();
+	}
+
+	@Benchmark
+	public int reused() throws IOException {
+		this.out.reset();
+		this.worker.writePng(this.seed++, 0, this.out);
+		return this.out.size();
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.smoofyuniverse.maze.bench;
+
+import net.smoofyuniverse.maze.gen.Maze;
+import net.smoofyuniverse.maze.gen.MazeSolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SolverBenchmark {
+	@Param({"1000", "4000"})
+	public int size;
+
+	@Param({"0", "0.5"})
+	public double errorFactor;
+
+	private MazeSolver solver;
+
+	@Setup(Level.Trial)
+	public void generate() {
+		Maze maze = new Maze(this.size, this.size, true);
+		maze.fill();
+		maze.connectAll(0L, this.errorFactor);
+		this.solver = new MazeSolver(maze);
+	}
+
+	@Benchmark
+	public int[] distances(CellCounter counter) {
+		counter.cells += this.solver.size;
+		return this.solver.distances(0);
+	}
+
+	@Benchmark
+	public int[] distancesParallel(CellCounter counter) {
+		counter.cells += this.solver.size;
+		return this.solver.distancesParallel(0);
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.bench;
+
+import net.smoofyuniverse.maze.gen.DisjointSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UnionFindBenchmark {
+	@Param({"100", "1000", "10000"})
+	public int size;
+
+	private DisjointSet set;
+	private int[] pairs;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		int n = this.size * this.size;
+		this.set = new DisjointSet(n);
+		this.pairs = neighbourPairs(this.size);
+	}
+
+	// Unions between random grid neighbours, like a generation would do
+	static int[] neighbourPairs(int size) {
+		int n = size * size;
+		Random random = new Random(0);
+		int[] pairs = new int[2 * n];
+		for (int i = 0; i < n; i++) {
+			int a = random.nextInt(n);
+			int b = random.nextBoolean() ? a + 1 : a + size;
+			pairs[2 * i] = a;
+			pairs[2 * i + 1] = b < n ? b : a;
+		}
+		return pairs;
+	}
+
+	@Setup(Level.Invocation)
+	public void clear() {
+		this.set.clear();
+	}
+
+	@Benchmark
+	public void union(CellCounter counter, Blackhole blackhole) {
+		for (int i = 0; i < this.pairs.length; i += 2)
+			blackhole.consume(this.set.union(this.pairs[i], this.pairs[i + 1]));
+		counter.cells += this.pairs.length >>> 1;
+	}
+}
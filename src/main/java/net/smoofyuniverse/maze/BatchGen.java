@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze;
+
+import net.smoofyuniverse.common.task.ProgressListener;
+import net.smoofyuniverse.maze.gen.GenerationMetrics;
+import net.smoofyuniverse.maze.gen.GenerationPlan;
+import net.smoofyuniverse.maze.gen.GenerationPlan.Format;
+import net.smoofyuniverse.maze.gen.GenerationStats;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Headless generation of a list of mazes.
+// Each line of the job file is: seed width height errorFactor whitePx blackPx output
+// Outputs ending with .maze are saved in the binary format, .svg as vector images, others as PNG images.
+public final class BatchGen {
+	private static final long MB = 1024 * 1024;
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: BatchGen <job file> [max parallel jobs]");
+			System.exit(2);
+			return;
+		}
+
+		List<Job> jobs;
+		try {
+			jobs = readJobs(Paths.get(args[0]));
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println("Invalid job file: " + e.getMessage());
+			System.exit(2);
+			return;
+		}
+
+		int threads;
+		try {
+			threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+			if (threads <= 0)
+				throw new IllegalArgumentException();
+		} catch (IllegalArgumentException e) {
+			System.err.println("Invalid max parallel jobs: " + args[1]);
+			System.exit(2);
+			return;
+		}
+		GenerationStats.register();
+		System.exit(run(jobs, threads) ? 0 : 1);
+	}
+
+	public static List<Job> readJobs(Path file) throws IOException {
+		List<Job> jobs = new ArrayList<>();
+		int lineNumber = 0;
+		for (String line : Files.readAllLines(file)) {
+			lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+
+			String[] parts = line.split("\\s+", 7);
+			if (parts.length != 7)
+				throw new IllegalArgumentException("line " + lineNumber + ": expected 7 fields");
+
+			try {
+				jobs.add(new Job(jobs.size() + 1, Long.parseLong(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+						Double.parseDouble(parts[3]), Integer.parseInt(parts[4]), Integer.parseInt(parts[5]), Paths.get(parts[6])));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("line " + lineNumber + ": invalid " + e.getMessage(), e);
+			}
+		}
+		return jobs;
+	}
+
+	public static boolean run(List<Job> jobs, int threads) throws InterruptedException {
+		if (threads <= 0)
+			throw new IllegalArgumentException("threads");
+
+		// Jobs reserve their estimated heap from a shared budget, so large jobs lower the parallelism
+		long heapBudget = GenerationPlan.defaultHeapBudget();
+		long budget = Math.max(1, heapBudget / MB);
+		AtomicInteger failures = new AtomicInteger();
+		Map<Job, GenerationPlan> plans = new HashMap<>();
+		long largest = 0;
+		for (Job job : jobs) {
+			try {
+				GenerationPlan plan = job.plan(heapBudget);
+				plans.put(job, plan);
+				largest = Math.max(largest, plan.heapBytes / MB + 1);
+			} catch (IllegalArgumentException e) {
+				failures.incrementAndGet();
+				System.out.printf(Locale.ROOT, "Job #%d %dx%d seed:%d refused: %s%n", job.id, job.width, job.height, job.seed, e.getMessage());
+			}
+		}
+		int parallelism = (int) Math.max(1, Math.min(threads, budget / Math.max(1, largest)));
+		Semaphore memory = new Semaphore((int) Math.min(Integer.MAX_VALUE, budget), true);
+
+		System.out.printf(Locale.ROOT, "%d jobs, %d threads, heap budget: %d MB, largest job: %d MB%n", jobs.size(), parallelism, budget, largest);
+
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		AtomicLong cells = new AtomicLong();
+		long start = System.nanoTime();
+
+		for (Job job : jobs) {
+			GenerationPlan plan = plans.get(job);
+			if (plan == null)
+				continue;
+
+			executor.submit(() -> {
+				int permits = (int) Math.min(budget, plan.heapBytes / MB + 1);
+				memory.acquireUninterruptibly(permits);
+				try {
+					GenerationMetrics metrics = new GenerationMetrics();
+					JobProgress progress = new JobProgress(job);
+					long jobStart = System.nanoTime();
+					plan.execute(job.seed, job.output, progress, metrics);
+					long duration = System.nanoTime() - jobStart;
+					if (progress.isCancelled()) {
+						failures.incrementAndGet();
+						System.out.printf(Locale.ROOT, "Job #%d %dx%d seed:%d cancelled after %d ms%n", job.id, job.width, job.height, job.seed, duration / 1_000_000);
+						return;
+					}
+					cells.addAndGet((long) job.width * job.height);
+					System.out.printf(Locale.ROOT, "Job #%d %dx%d seed:%d -> %s in %d ms, %s %s (%.0f cells/s)%n  %s%n", job.id, job.width, job.height, job.seed,
+							job.output, duration / 1_000_000, plan.engine, plan.algorithm, job.width * (double) job.height * 1e9 / duration, metrics.toString().replace("\n", "\n  "));
+				} catch (Exception e) {
+					failures.incrementAndGet();
+					System.out.printf(Locale.ROOT, "Job #%d %dx%d seed:%d failed: %s%n", job.id, job.width, job.height, job.seed, e);
+				} finally {
+					memory.release(permits);
+				}
+			});
+		}
+
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+		long duration = System.nanoTime() - start;
+		System.out.printf(Locale.ROOT, "%d jobs done, %d failed in %d ms (%.2f jobs/s, %.0f cells/s)%n", jobs.size() - failures.get(), failures.get(),
+				duration / 1_000_000, (jobs.size() - failures.get()) * 1e9 / duration, cells.get() * 1e9 / duration);
+		return failures.get() == 0;
+	}
+
+	// Prints the progress of each phase of jobs lasting more than a few seconds.
+	private static final class JobProgress implements ProgressListener {
+		private static final long QUIET_NANOS = 5_000_000_000L;
+
+		private final Job job;
+		private final long start = System.nanoTime();
+		private volatile boolean cancelled;
+		private int quarter;
+
+		JobProgress(Job job) {
+			this.job = job;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return this.cancelled;
+		}
+
+		@Override
+		public void setCancelled(boolean value) {
+			this.cancelled = value;
+		}
+
+		@Override
+		public synchronized void setProgress(double value) {
+			int quarter = (int) (value * 4);
+			if (quarter < this.quarter)
+				this.quarter = 0; // Next phase
+			if (quarter > this.quarter && quarter < 4 && System.nanoTime() - this.start > QUIET_NANOS)
+				System.out.printf(Locale.ROOT, "Job #%d: %d%%%n", this.job.id, quarter * 25);
+			this.quarter = quarter;
+		}
+	}
+
+	public static final class Job {
+		public final int id;
+		public final long seed;
+		public final int width, height;
+		public final double errorFactor;
+		public final int whitePx, blackPx;
+		public final Path output;
+
+		public Job(int id, long seed, int width, int height, double errorFactor, int whitePx, int blackPx, Path output) {
+			if (width <= 0)
+				throw new IllegalArgumentException("width");
+			if (height <= 0)
+				throw new IllegalArgumentException("height");
+			if (errorFactor < 0 || errorFactor > 1)
+				throw new IllegalArgumentException("errorFactor");
+			if (whitePx <= 0)
+				throw new IllegalArgumentException("whitePx");
+			if (blackPx < 0)
+				throw new IllegalArgumentException("blackPx");
+
+			this.id = id;
+			this.seed = seed;
+			this.width = width;
+			this.height = height;
+			this.errorFactor = errorFactor;
+			this.whitePx = whitePx;
+			this.blackPx = blackPx;
+			this.output = output;
+		}
+
+		public Format getFormat() {
+			return Format.of(this.output);
+		}
+
+		// Parallelism comes from the jobs themselves, so each one runs on a single thread
+		public GenerationPlan plan(long heapBudget) {
+			return GenerationPlan.of(this.width, this.height, this.whitePx, this.blackPx, this.errorFactor, getFormat(), heapBudget, 1);
+		}
+	}
+}
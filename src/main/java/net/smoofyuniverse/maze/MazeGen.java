@@ -52,7 +52,7 @@ public class MazeGen extends Application {
 	@Override
 	public void run() {
 		runLater(() -> {
-			Stage stage = createStage(550, 200, generateIcon());
+			Stage stage = createStage(550, 230, generateIcon());
 			setStage(stage);
 
 			stage.setScene(new Scene(new UserInterface()));
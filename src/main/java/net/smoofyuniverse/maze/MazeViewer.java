@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze;
+
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import net.smoofyuniverse.maze.gen.TileRenderer;
+import net.smoofyuniverse.maze.gen.WallGrid;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Zoomable view of a maze. Only the visible tiles are rendered, in the background, at the level matching the zoom.
+// Rendered tiles are kept in an LRU cache. Missing tiles are drawn from a cached tile of a coarser level meanwhile.
+public final class MazeViewer extends Region {
+	private static final int TILE_SIZE = 256, CACHE_SIZE = 512;
+	private static final double MAX_SCALE = 32, ZOOM_STEP = 1.1;
+	private static final AtomicInteger viewerCount = new AtomicInteger();
+
+	private final TileRenderer renderer;
+	private final Canvas canvas = new Canvas();
+	private final ExecutorService executor;
+	// Accessed on the JavaFX thread only
+	private final Map<Long, Image> cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Image> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+	private final Set<Long> pending = new HashSet<>();
+	// Tiles of the last drawn frame, read by the renderers to skip the tiles scrolled out meanwhile
+	private volatile Set<Long> visible = Collections.emptySet();
+
+	// Image pixel at the top left corner and screen pixels per image pixel
+	private double offsetX, offsetY, scale;
+	private double dragX, dragY;
+	private boolean fitted;
+
+	public MazeViewer(WallGrid grid, int whitePx, int blackPx) {
+		this.renderer = new TileRenderer(grid, whitePx, blackPx, TILE_SIZE);
+
+		int id = viewerCount.incrementAndGet();
+		AtomicInteger count = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), r -> {
+			Thread t = new Thread(r, "Maze viewer #" + id + " renderer #" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+
+		// Sized by layoutChildren, so it must not take part in the size of the region
+		this.canvas.setManaged(false);
+		getChildren().add(this.canvas);
+		setPrefSize(800, 600);
+		setOnScroll(this::onScroll);
+		setOnMousePressed(this::onMousePressed);
+		setOnMouseDragged(this::onMouseDragged);
+	}
+
+	@Override
+	protected void layoutChildren() {
+		this.canvas.setWidth(getWidth());
+		this.canvas.setHeight(getHeight());
+		if (!this.fitted && getWidth() > 0 && getHeight() > 0) {
+			fit();
+			this.fitted = true;
+		}
+		redraw();
+	}
+
+	// Shows the whole maze.
+	public void fit() {
+		this.scale = Math.min(MAX_SCALE, Math.min(getWidth() / this.renderer.imageWidth, getHeight() / this.renderer.imageHeight));
+		this.offsetX = (this.renderer.imageWidth - getWidth() / this.scale) / 2;
+		this.offsetY = (this.renderer.imageHeight - getHeight() / this.scale) / 2;
+		redraw();
+	}
+
+	private void onScroll(ScrollEvent e) {
+		double minScale = Math.min(1, Math.min(getWidth() / this.renderer.imageWidth, getHeight() / this.renderer.imageHeight) / 2);
+		double newScale = Math.max(minScale, Math.min(MAX_SCALE, this.scale * Math.pow(ZOOM_STEP, e.getDeltaY() / 40)));
+
+		// The image pixel under the cursor stays in place
+		this.offsetX += e.getX() / this.scale - e.getX() / newScale;
+		this.offsetY += e.getY() / this.scale - e.getY() / newScale;
+		this.scale = newScale;
+		redraw();
+	}
+
+	private void onMousePressed(MouseEvent e) {
+		this.dragX = e.getX();
+		this.dragY = e.getY();
+	}
+
+	private void onMouseDragged(MouseEvent e) {
+		this.offsetX -= (e.getX() - this.dragX) / this.scale;
+		this.offsetY -= (e.getY() - this.dragY) / this.scale;
+		this.dragX = e.getX();
+		this.dragY = e.getY();
+		redraw();
+	}
+
+	private int level() {
+		// Tile pixels should not be smaller than screen pixels
+		int level = (int) Math.floor(-Math.log(this.scale) / Math.log(2));
+		return Math.max(0, Math.min(this.renderer.maxLevel, level));
+	}
+
+	private void redraw() {
+		double width = this.canvas.getWidth(), height = this.canvas.getHeight();
+		GraphicsContext g = this.canvas.getGraphicsContext2D();
+		g.setFill(Color.GRAY);
+		g.fillRect(0, 0, width, height);
+		if (this.scale <= 0)
+			return;
+		g.setImageSmoothing(this.scale < 1);
+
+		int level = level();
+		long span = (long) TILE_SIZE << level;
+		long tx0 = Math.max(0, (long) Math.floor(this.offsetX / span)), ty0 = Math.max(0, (long) Math.floor(this.offsetY / span));
+		long tx1 = Math.min(this.renderer.tilesX(level) - 1, (long) Math.floor((this.offsetX + width / this.scale) / span));
+		long ty1 = Math.min(this.renderer.tilesY(level) - 1, (long) Math.floor((this.offsetY + height / this.scale) / span));
+
+		Set<Long> visible = new HashSet<>();
+		double size = span * this.scale;
+		for (long ty = ty0; ty <= ty1; ty++) {
+			for (long tx = tx0; tx <= tx1; tx++) {
+				double x = (tx * span - this.offsetX) * this.scale, y = (ty * span - this.offsetY) * this.scale;
+				long key = key(level, tx, ty);
+				visible.add(key);
+
+				Image tile = this.cache.get(key);
+				if (tile != null) {
+					g.drawImage(tile, x, y, size, size);
+				} else {
+					drawCoarser(g, level, tx, ty, x, y, size);
+					request(key, level, tx, ty);
+				}
+			}
+		}
+		this.visible = visible;
+	}
+
+	// Draws the part of a cached tile of a coarser level that covers the given tile.
+	private void drawCoarser(GraphicsContext g, int level, long tx, long ty, double x, double y, double size) {
+		for (int l = level + 1; l <= this.renderer.maxLevel; l++) {
+			int d = l - level, part = TILE_SIZE >> d;
+			if (part == 0)
+				return;
+
+			Image tile = this.cache.get(key(l, tx >> d, ty >> d));
+			if (tile != null) {
+				long mask = (1L << d) - 1;
+				g.drawImage(tile, (tx & mask) * part, (ty & mask) * part, part, part, x, y, size, size);
+				return;
+			}
+		}
+	}
+
+	private void request(long key, int level, long tx, long ty) {
+		if (!this.pending.add(key))
+			return;
+
+		this.executor.execute(() -> {
+			if (!this.visible.contains(key)) {
+				Platform.runLater(() -> this.pending.remove(key));
+				return;
+			}
+
+			int[] pixels = this.renderer.render(level, tx, ty);
+			Platform.runLater(() -> {
+				this.pending.remove(key);
+				WritableImage image = new WritableImage(TILE_SIZE, TILE_SIZE);
+				image.getPixelWriter().setPixels(0, 0, TILE_SIZE, TILE_SIZE, PixelFormat.getIntArgbInstance(), pixels, 0, TILE_SIZE);
+				this.cache.put(key, image);
+				if (this.visible.contains(key))
+					redraw();
+			});
+		});
+	}
+
+	private static long key(int level, long tx, long ty) {
+		return (long) level << 58 | tx << 29 | ty;
+	}
+
+	// Stops the renderers, the viewer must not be used afterwards.
+	public void dispose() {
+		this.executor.shutdownNow();
+		this.cache.clear();
+	}
+}
@@ -25,13 +25,16 @@ package net.smoofyuniverse.maze;
 import javafx.beans.binding.Bindings;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.layout.GridPane;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
+import javafx.stage.Stage;
 import net.smoofyuniverse.common.app.ApplicationManager;
 import net.smoofyuniverse.common.fx.animation.Stopwatch;
 import net.smoofyuniverse.common.fx.dialog.Popup;
@@ -42,14 +45,20 @@ import net.smoofyuniverse.common.fx.task.ObservableProgressTask;
 import net.smoofyuniverse.common.logger.ApplicationLogger;
 import net.smoofyuniverse.common.task.ProgressTask;
 import net.smoofyuniverse.common.util.GridUtil;
+import net.smoofyuniverse.maze.gen.Algorithm;
+import net.smoofyuniverse.maze.gen.GenerationMetrics;
+import net.smoofyuniverse.maze.gen.GenerationPlan;
+import net.smoofyuniverse.maze.gen.GenerationPlan.Engine;
+import net.smoofyuniverse.maze.gen.GenerationPlan.Format;
 import net.smoofyuniverse.maze.gen.Maze;
+import net.smoofyuniverse.maze.gen.MazeFile;
+import net.smoofyuniverse.maze.gen.WallGrid;
 import org.slf4j.Logger;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 public final class UserInterface extends GridPane {
@@ -63,20 +72,26 @@ public final class UserInterface extends GridPane {
 		title.setFont(Font.font("Monospaced", FontWeight.BOLD, 24));
 
 		LongField seed = new LongField(0);
-		IntegerField width = new IntegerField(1, 10000, 30), height = new IntegerField(1, 10000, 30);
+		IntegerField width = new IntegerField(1, Integer.MAX_VALUE, 30), height = new IntegerField(1, Integer.MAX_VALUE, 30);
 		DoubleField error = new DoubleField(0, 1, 0);
+		CheckBox legacy = new CheckBox("Anciennes graines");
 		IntegerField whitePx = new IntegerField(1, 100, 2), blackPx = new IntegerField(1, 100, 1);
 
 		Button randomSeed = new Button("Aléatoire");
 		Button genMaze = new Button("Générer");
+		Button viewMaze = new Button("Visualiser"), openMaze = new Button("Ouvrir");
 		randomSeed.setMaxWidth(Double.MAX_VALUE);
 		genMaze.setMaxWidth(Double.MAX_VALUE);
+		viewMaze.setMaxWidth(Double.MAX_VALUE);
+		openMaze.setMaxWidth(Double.MAX_VALUE);
 
 		addRow(0, new Label("Graine:"), seed, randomSeed);
 		addRow(1, new Label("Dimensions:"), width, height);
-		addRow(2, new Label("Erreur:"), error);
+		addRow(2, new Label("Erreur:"), error, legacy);
 		addRow(3, new Label("Pixels:"), whitePx, blackPx);
 		add(genMaze, 0, 4, 3, 1);
+		add(viewMaze, 0, 5, 2, 1);
+		add(openMaze, 2, 5);
 
 		setAlignment(Pos.CENTER);
 		setPadding(new Insets(10));
@@ -85,22 +100,86 @@ public final class UserInterface extends GridPane {
 		getColumnConstraints().addAll(GridUtil.column(16), GridUtil.column(42), GridUtil.column(42));
 
 		FileChooser chooser = new FileChooser();
-		chooser.getExtensionFilters().add(new ExtensionFilter("Image", "*.png"));
+		chooser.getExtensionFilters().addAll(new ExtensionFilter("Image", "*.png"), new ExtensionFilter("Image vectorielle", "*.svg"));
 		
+		FileChooser mazeChooser = new FileChooser();
+		mazeChooser.getExtensionFilters().add(new ExtensionFilter("Labyrinthe", "*.maze"));
+
 		randomSeed.setOnAction((e) -> seed.valueProperty().set(random.nextLong()));
-		
-		genMaze.setOnAction((ev) -> {
-			File f = chooser.showSaveDialog(MazeGen.get().getStage().orElse(null));
+
+		viewMaze.setOnAction((ev) -> {
+			long seedV = seed.getValue();
+			int widthV = width.getValue(), heightV = height.getValue();
+			double errorV = error.getValue();
+			int whitePxV = whitePx.getValue(), blackPxV = blackPx.getValue();
+			boolean legacyV = legacy.isSelected();
+
+			GenerationPlan plan;
+			try {
+				GenerationPlan planned = GenerationPlan.of(widthV, heightV, whitePxV, blackPxV, errorV, Format.BINARY);
+				plan = legacyV ? planned.legacy() : planned;
+				if (plan.engine == Engine.STREAMING)
+					throw new IllegalArgumentException("The maze does not fit in memory, it can only be written to a file");
+			} catch (IllegalArgumentException e) {
+				Popup.error().title("Visualisation impossible").header("Ce labyrinthe ne peut pas être affiché.").message(e).show();
+				return;
+			}
+
+			AtomicReference<Maze> result = new AtomicReference<>();
+			Consumer<ProgressTask> consumer = (task) -> {
+				task.setMessage("Génération: " + widthV + "x" + heightV + " (" + engineName(plan.engine) + ")");
+				Maze maze = new Maze(widthV, heightV, true);
+				maze.listener = task;
+				maze.fill();
+				plan.generate(maze, seedV);
+				maze.listener = null;
+				if (!task.isCancelled())
+					result.set(maze);
+			};
+
+			Popup.consumer(consumer).task(new ObservableProgressTask()).title("Génération ...").submitAndWait();
+			if (result.get() != null)
+				showViewer(result.get(), whitePxV, blackPxV, "Graine: " + seedV + ", " + algorithmName(plan.algorithm) + " (" + widthV + "x" + heightV + ")");
+		});
+
+		openMaze.setOnAction((ev) -> {
+			File f = mazeChooser.showOpenDialog(MazeGen.get().getStage().orElse(null));
 			if (f == null)
 				return;
 
+			try {
+				MazeFile file = MazeFile.open(f.toPath());
+				showViewer(file, whitePx.getValue(), blackPx.getValue(), f.getName() + " (graine: " + file.seed + ", " + algorithmName(file.algorithm) + ", " + file.width + "x" + file.height + ")");
+			} catch (IOException | IllegalArgumentException e) {
+				logger.error("Failed to open maze file {}", f, e);
+				Popup.error().title("Erreur de lecture").header("Une erreur est survenue lors de la lecture du labyrinthe.").message(e).show();
+			}
+		});
+		
+		genMaze.setOnAction((ev) -> {
 			long seedV = seed.getValue();
 			int widthV = width.getValue(), heightV = height.getValue();
 			double errorV = error.getValue();
 			int whitePxV = whitePx.getValue(), blackPxV = blackPx.getValue();
+			boolean legacyV = legacy.isSelected();
+
+			File f = chooser.showSaveDialog(MazeGen.get().getStage().orElse(null));
+			if (f == null)
+				return;
+
+			GenerationPlan plan;
+			try {
+				GenerationPlan planned = GenerationPlan.of(widthV, heightV, whitePxV, blackPxV, errorV, Format.of(f.toPath()));
+				plan = legacyV ? planned.legacy() : planned;
+			} catch (IllegalArgumentException e) {
+				Popup.error().title("Génération impossible").header("Ce labyrinthe ne peut pas être généré.").message(e).show();
+				return;
+			}
+
 			int id = ++taskId;
 
-			logger.info("Starting generation task #{} ... ({}x{}, {}:{}, seed:{})", id, widthV, heightV, whitePxV, blackPxV, seedV);
+			logger.info("Starting generation task #{} ... ({}x{}, {}:{}, seed:{}, engine:{}, algorithm:{}, heap:{} MB, output:{} MB, duration:{}s)", id, widthV, heightV, whitePxV, blackPxV, seedV,
+					plan.engine, plan.algorithm, plan.heapBytes >> 20, plan.outputBytes >> 20, (long) plan.seconds);
 
 			Stopwatch stopwatch = new Stopwatch(5);
 			ObservableProgressTask t = new ObservableProgressTask();
@@ -109,46 +188,70 @@ public final class UserInterface extends GridPane {
 			Consumer<ProgressTask> consumer = (task) -> {
 				stopwatch.start();
 
-				task.setMessage("Initialisation: " + widthV + "x" + heightV);
-				Maze maze = new Maze(widthV, heightV);
-				maze.listener = task;
-				task.setMessage("Graine: " + seedV);
-				Random r = new Random(seedV);
+				task.setMessage("Génération: " + widthV + "x" + heightV + " (" + engineName(plan.engine) + ", " + algorithmName(plan.algorithm) + ", durée estimée: " + Math.round(plan.seconds) + "s)");
+				GenerationMetrics metrics = new GenerationMetrics();
+				try {
+					plan.execute(seedV, f.toPath(), task, metrics);
 
-				task.setMessage("Instanciation: " + maze.points.length + " points.");
-				maze.fill();
-				task.setMessage("Connection des points ...");
-				maze.connectAll(r, errorV);
-				
-				if (task.isCancelled()) {
 					stopwatch.pause();
 					System.gc();
 
-					logger.info("Task #{} has been cancelled. Duration: {}", id, stopwatch.getText());
-				} else {
-					task.setMessage("Génération de l'image: " + whitePxV + ":" + blackPxV);
-					BufferedImage img = maze.createImage(whitePxV, blackPxV);
+					if (task.isCancelled()) {
+						logger.info("Task #{} has been cancelled. Duration: {}", id, stopwatch.getText());
+					} else {
+						logger.info("Task #{} has terminated. Duration: {}", id, stopwatch.getText());
+						for (GenerationMetrics.Phase phase : metrics.getPhases())
+							logger.debug("Task #{} {}", id, phase);
 
+						Popup.info().message("Graine: " + seedV + "\nAlgorithme: " + algorithmName(plan.algorithm) + "\nDimensions: " + widthV + "x" + heightV + "\nPixels: " + whitePxV + ":" + blackPxV + "\nDurée: " + stopwatch.getText())
+								.title("Opération terminée").header("L'image labyrinthe a été générée et écrite avec succès.").show();
+					}
+				} catch (IOException e) {
 					stopwatch.pause();
 					System.gc();
 
-					try {
-						task.setMessage("Écriture ...");
-						ImageIO.write(img, "png", f);
+					logger.error("Task #{} has terminated but failed to write the generated image. Duration: {}", id, stopwatch.getText(), e);
 
-						logger.info("Task #{} has terminated. Duration: {}", id, stopwatch.getText());
-
-						Popup.info().message("Graine: " + seedV + "\nDimensions: " + widthV + "x" + heightV + "\nPixels: " + whitePxV + ":" + blackPxV + "\nDurée: " + stopwatch.getText())
-								.title("Opération terminée").header("L'image labyrinthe a été générée et écrite avec succès.").show();
-					} catch (IOException e) {
-						logger.error("Task #{} has terminated but failed to write the generated image. Duration: {}", id, stopwatch.getText(), e);
-
-						Popup.error().title("Erreur d'écriture").header("Une erreur est survenue lors de l'écriture de l'image.").message(e).show();
-					}
+					Popup.error().title("Erreur d'écriture").header("Une erreur est survenue lors de l'écriture de l'image.").message(e).show();
 				}
 			};
 
 			Popup.consumer(consumer).task(t).title("Génération ...").submitAndWait();
 		});
 	}
+
+	private static void showViewer(WallGrid grid, int whitePx, int blackPx, String title) {
+		MazeViewer viewer = new MazeViewer(grid, whitePx, blackPx);
+		Stage stage = new Stage();
+		stage.setTitle(title);
+		MazeGen.get().getStage().ifPresent(s -> stage.getIcons().setAll(s.getIcons()));
+		stage.setScene(new Scene(viewer));
+		stage.setOnHidden((e) -> viewer.dispose());
+		stage.show();
+	}
+
+	// The same seed gives another maze with another algorithm
+	private static String algorithmName(Algorithm algorithm) {
+		switch (algorithm) {
+			case KRUSKAL:
+				return "Kruskal historique";
+			case TILED_KRUSKAL:
+				return "Kruskal par tuiles";
+			case ELLER:
+				return "Eller";
+			default:
+				return algorithm.name();
+		}
+	}
+
+	private static String engineName(Engine engine) {
+		switch (engine) {
+			case TILED:
+				return "en parallèle";
+			case STREAMING:
+				return "en flux";
+			default:
+				return "en mémoire";
+		}
+	}
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.smoofyuniverse.maze.gen;
+
+import net.smoofyuniverse.common.task.ProgressListener;
+
+import java.util.random.RandomGenerator;
+
+public abstract class AbstractMazeGenerator implements MazeGenerator {
+	private ProgressChannel progress;
+	private long nextReport;
+	private long cells, duration;
+
+	@Override
+	public final void generate(MazeStore store, RandomGenerator random, ProgressListener listener) {
+		if (store == null)
+			throw new IllegalArgumentException("store");
+		if (random == null)
+			throw new IllegalArgumentException("random");
+
+		if (listener != null)
+			listener.setCancelled(false);
+
+		store.clear();
+		try (ProgressChannel progress = ProgressChannel.open(listener)) {
+			progress.phase(store.size);
+			this.progress = progress;
+			this.nextReport = ProgressChannel.CHUNK;
+
+			long start = System.nanoTime();
+			carve(store, random);
+			this.duration = System.nanoTime() - start;
+			this.cells = store.size;
+		} finally {
+			this.progress = null;
+		}
+	}
+
+	protected abstract void carve(MazeStore store, RandomGenerator random);
+
+	// Reports the number of cells done, returns true when the generation has been cancelled
+	protected final boolean progress(long done) {
+		if (done < this.nextReport)
+			return false;
+
+		this.nextReport = done + ProgressChannel.CHUNK;
+		this.progress.report(done);
+		return this.progress.isCancelled();
+	}
+
+	// For long loops that do not complete cells
+	protected final boolean isCancelled() {
+		return this.progress.isCancelled();
+	}
+
+	@Override
+	public double getCellsPerSecond() {
+		return this.duration == 0 ? 0 : this.cells * 1e9 / this.duration;
+	}
+
+	protected static int opposite(int direction) {
+		return direction ^ 1;
+	}
+
+	protected static boolean get(long[] bits, int i) {
+		return (bits[i >>> 6] & (1L << i)) != 0;
+	}
+
+	protected static void set(long[] bits, int i) {
+		bits[i >>> 6] |= 1L << i;
+	}
+
+	protected static long bitsetSize(long bits) {
+		return 8 * ((bits + 63) >>> 6);
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+public enum Algorithm {
+	UNKNOWN(0), KRUSKAL(1), TILED_KRUSKAL(2), ELLER(3), BACKTRACKER(4), PRIM(5), WILSON(6), BINARY_TREE(7), SIDEWINDER(8);
+
+	private static final Algorithm[] byId;
+
+	public final int id;
+
+	Algorithm(int id) {
+		this.id = id;
+	}
+
+	public static Algorithm byId(int id) {
+		return id >= 0 && id < byId.length && byId[id] != null ? byId[id] : UNKNOWN;
+	}
+
+	static {
+		int max = 0;
+		for (Algorithm a : values())
+			max = Math.max(max, a.id);
+
+		byId = new Algorithm[max + 1];
+		for (Algorithm a : values())
+			byId[a.id] = a;
+	}
+}
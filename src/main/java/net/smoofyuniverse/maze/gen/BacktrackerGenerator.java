@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.smoofyuniverse.maze.gen;
+
+import java.util.random.RandomGenerator;
+
+// Depth-first search without recursion nor stack: each cell remembers the direction it was entered from.
+public class BacktrackerGenerator extends AbstractMazeGenerator {
+
+	@Override
+	public Algorithm getAlgorithm() {
+		return Algorithm.BACKTRACKER;
+	}
+
+	@Override
+	public long memoryUsage(int width, int height) {
+		long size = (long) width * height;
+		return MazeStore.memoryUsage(size, false) + bitsetSize(size) + bitsetSize(2 * size);
+	}
+
+	@Override
+	protected void carve(MazeStore store, RandomGenerator random) {
+		int n = store.size;
+		long[] visited = new long[(n + 63) >>> 6];
+		// 2 bits per cell: direction leading back to the previous cell of the path
+		long[] back = new long[(n + 31) >>> 5];
+		int[] candidates = new int[4];
+
+		int start = random.nextInt(n), cell = start, done = 1;
+		set(visited, start);
+
+		while (true) {
+			int count = 0;
+			for (int d = 0; d < 4; d++) {
+				int next = store.neighbour(cell, d);
+				if (next >= 0 && !get(visited, next))
+					candidates[count++] = d;
+			}
+
+			if (count != 0) {
+				int d = candidates[count == 1 ? 0 : random.nextInt(count)];
+				int next = store.neighbour(cell, d);
+				store.open(store.edge(cell, d));
+				set(visited, next);
+				back[next >>> 5] |= (long) opposite(d) << (next << 1);
+				cell = next;
+				if (progress(++done))
+					return;
+			} else {
+				if (cell == start)
+					return;
+				cell = store.neighbour(cell, (int) (back[cell >>> 5] >>> (cell << 1)) & 3);
+			}
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.smoofyuniverse.maze.gen;
+
+import java.util.random.RandomGenerator;
+
+// Each cell opens either its up or its left passage. Works row by row without extra memory.
+public class BinaryTreeGenerator extends AbstractMazeGenerator {
+
+	@Override
+	public Algorithm getAlgorithm() {
+		return Algorithm.BINARY_TREE;
+	}
+
+	@Override
+	public long memoryUsage(int width, int height) {
+		return MazeStore.memoryUsage((long) width * height, false);
+	}
+
+	@Override
+	protected void carve(MazeStore store, RandomGenerator random) {
+		int w = store.width;
+		for (int x = 1; x < w; x++)
+			store.openRight(x - 1);
+
+		long bits = 0;
+		int bitCount = 0;
+		for (int y = 1, i = w; y < store.height; y++) {
+			store.openDown(i - w);
+			i++;
+
+			for (int x = 1; x < w; x++, i++) {
+				if (bitCount == 0) {
+					bits = random.nextLong();
+					bitCount = 64;
+				}
+				if ((bits & 1) == 0)
+					store.openDown(i - w);
+				else
+					store.openRight(i - 1);
+				bits >>>= 1;
+				bitCount--;
+			}
+
+			if (progress(i))
+				return;
+		}
+	}
+}
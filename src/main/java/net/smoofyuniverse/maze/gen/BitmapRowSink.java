@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+// Bitmap of 2 bits per cell in the same order as MazeStore: bit 2i is the right passage of cell i, bit 2i+1 its down passage.
+public class BitmapRowSink implements RowSink {
+	public final int width;
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+
+	private int current, bits;
+
+	public BitmapRowSink(WritableByteChannel channel, int width) {
+		if (channel == null)
+			throw new IllegalArgumentException("channel");
+		if (width <= 0)
+			throw new IllegalArgumentException("width");
+
+		this.channel = channel;
+		this.width = width;
+	}
+
+	@Override
+	public void accept(int y, long[] right, long[] down) throws IOException {
+		for (int x = 0; x < this.width; x++) {
+			int cell = (int) ((right[x >>> 6] >>> x) & 1) | (int) (((down[x >>> 6] >>> x) & 1) << 1);
+			this.current |= cell << this.bits;
+			this.bits += 2;
+			if (this.bits == 8) {
+				if (!this.buffer.hasRemaining())
+					drain();
+				this.buffer.put((byte) this.current);
+				this.current = 0;
+				this.bits = 0;
+			}
+		}
+	}
+
+	public void finish() throws IOException {
+		if (this.bits != 0) {
+			if (!this.buffer.hasRemaining())
+				drain();
+			this.buffer.put((byte) this.current);
+			this.current = 0;
+			this.bits = 0;
+		}
+		drain();
+	}
+
+	private void drain() throws IOException {
+		this.buffer.flip();
+		while (this.buffer.hasRemaining())
+			this.channel.write(this.buffer);
+		this.buffer.clear();
+	}
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.smoofyuniverse.maze.gen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// An unbounded maze made of square chunks, generated on demand and kept in a LRU cache.
+// Each chunk is a perfect maze generated from (seed, cx, cy). Chunks are linked by a single passage
+// to a neighbour closer to chunk (0, 0), so the whole maze stays perfect without generating the neighbours.
+public class ChunkedMaze {
+	private static final int UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3;
+
+	public final long seed;
+	public final int chunkSize, cacheSize;
+	public final double errorFactor;
+	public final Algorithm algorithm;
+	// Evicted chunks are saved there when not null
+	public final Path spillDirectory;
+
+	private final MazeGenerator generator;
+	private final MazeStore scratch;
+	private final ByteBuffer transfer;
+	private final LinkedHashMap<Long, Chunk> cache;
+	private long generated, loaded, spilled;
+
+	public ChunkedMaze(long seed, int chunkSize, int cacheSize) {
+		this(seed, chunkSize, 0, Algorithm.KRUSKAL, cacheSize, null);
+	}
+
+	public ChunkedMaze(long seed, int chunkSize, double errorFactor, Algorithm algorithm, int cacheSize, Path spillDirectory) {
+		if (chunkSize <= 1 || chunkSize > 46340)
+			throw new IllegalArgumentException("chunkSize");
+		if (errorFactor < 0 || errorFactor > 1)
+			throw new IllegalArgumentException("errorFactor");
+		if (cacheSize <= 0)
+			throw new IllegalArgumentException("cacheSize");
+
+		this.seed = seed;
+		this.chunkSize = chunkSize;
+		this.errorFactor = errorFactor;
+		this.algorithm = algorithm;
+		this.cacheSize = cacheSize;
+		this.spillDirectory = spillDirectory;
+
+		this.generator = MazeGenerator.of(algorithm);
+		this.scratch = this.generator.createStore(chunkSize, chunkSize);
+		this.transfer = ByteBuffer.allocate((int) MazeFile.bitmapLength(this.scratch.size));
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+				if (size() <= ChunkedMaze.this.cacheSize)
+					return false;
+				spill(eldest.getValue());
+				return true;
+			}
+		};
+	}
+
+	public boolean isRightOpen(long x, long y) {
+		int cx = chunk(x), cy = chunk(y);
+		int lx = Math.floorMod(x, this.chunkSize), ly = Math.floorMod(y, this.chunkSize);
+		Chunk chunk = getChunk(cx, cy);
+		return lx == this.chunkSize - 1 ? chunk.rightLink == ly : chunk.store.isRightOpen(ly * this.chunkSize + lx);
+	}
+
+	public boolean isDownOpen(long x, long y) {
+		int cx = chunk(x), cy = chunk(y);
+		int lx = Math.floorMod(x, this.chunkSize), ly = Math.floorMod(y, this.chunkSize);
+		Chunk chunk = getChunk(cx, cy);
+		return ly == this.chunkSize - 1 ? chunk.downLink == lx : chunk.store.isDownOpen(ly * this.chunkSize + lx);
+	}
+
+	private int chunk(long coordinate) {
+		long c = Math.floorDiv(coordinate, this.chunkSize);
+		if (c < Integer.MIN_VALUE || c >= Integer.MAX_VALUE)
+			throw new IllegalArgumentException("coordinate");
+		return (int) c;
+	}
+
+	public synchronized Chunk getChunk(int cx, int cy) {
+		if (cx == Integer.MAX_VALUE)
+			throw new IllegalArgumentException("cx");
+		if (cy == Integer.MAX_VALUE)
+			throw new IllegalArgumentException("cy");
+
+		Long key = key(cx, cy);
+		Chunk chunk = this.cache.get(key);
+		if (chunk == null) {
+			chunk = new Chunk(cx, cy, load(cx, cy));
+			this.cache.put(key, chunk);
+		}
+		return chunk;
+	}
+
+	public synchronized int getCachedChunks() {
+		return this.cache.size();
+	}
+
+	// Bytes used by the cached chunks and the generation buffers
+	public synchronized long memoryUsage() {
+		return this.cache.size() * MazeStore.memoryUsage(this.scratch.size, false) + this.scratch.memoryUsage() + this.transfer.capacity();
+	}
+
+	public synchronized long getGeneratedChunks() {
+		return this.generated;
+	}
+
+	public synchronized long getLoadedChunks() {
+		return this.loaded;
+	}
+
+	public synchronized long getSpilledChunks() {
+		return this.spilled;
+	}
+
+	private MazeStore load(int cx, int cy) {
+		if (this.spillDirectory != null) {
+			Path file = spillFile(cx, cy);
+			if (Files.exists(file)) {
+				try {
+					MazeFile mazeFile = MazeFile.open(file);
+					if (mazeFile.width == this.chunkSize && mazeFile.height == this.chunkSize && mazeFile.seed == this.seed
+							&& mazeFile.errorFactor == this.errorFactor && mazeFile.algorithm == this.algorithm) {
+						this.loaded++;
+						return mazeFile.toStore();
+					}
+				} catch (IOException ignored) {
+					// Generated again below
+				}
+			}
+		}
+
+		SplittableRandom random = new SplittableRandom(mix(this.seed, cx, cy, 0));
+		this.generator.generate(this.scratch, random, null);
+		if (this.errorFactor != 0)
+			new Maze(this.scratch).insertLoops(this.errorFactor, random);
+
+		// Only the passages are kept in the cache
+		MazeStore store = new MazeStore(this.chunkSize, this.chunkSize, false);
+		this.transfer.clear();
+		this.scratch.exportWalls(this.transfer);
+		this.transfer.flip();
+		store.importWalls(this.transfer);
+		this.generated++;
+		return store;
+	}
+
+	private void spill(Chunk chunk) {
+		if (this.spillDirectory == null)
+			return;
+
+		Path file = spillFile(chunk.cx, chunk.cy);
+		if (Files.exists(file))
+			return;
+
+		try {
+			Files.createDirectories(this.spillDirectory);
+			MazeFile.write(file, new Maze(chunk.store), this.seed, this.errorFactor, this.algorithm);
+			this.spilled++;
+		} catch (IOException ignored) {
+			// The chunk can still be generated again
+		}
+	}
+
+	private Path spillFile(int cx, int cy) {
+		return this.spillDirectory.resolve("chunk_" + cx + "_" + cy + ".maze");
+	}
+
+	// Direction from chunk (cx, cy) to its parent in the tree of chunks rooted at (0, 0), -1 for the root
+	private int parent(int cx, int cy) {
+		if (cx == 0 && cy == 0)
+			return -1;
+
+		boolean horizontal = cy == 0 || (cx != 0 && (mix(this.seed, cx, cy, 1) & 1) == 0);
+		if (horizontal)
+			return cx > 0 ? LEFT : RIGHT;
+		return cy > 0 ? UP : DOWN;
+	}
+
+	// Position along the border of the passage between a chunk and its parent
+	private int linkPosition(int cx, int cy) {
+		return (int) Math.floorMod(mix(this.seed, cx, cy, 2), (long) this.chunkSize);
+	}
+
+	private static long key(int cx, int cy) {
+		return (long) cx << 32 | (cy & 0xFFFFFFFFL);
+	}
+
+	private static long mix(long seed, int cx, int cy, int salt) {
+		long z = seed + key(cx, cy) * 0x9E3779B97F4A7C15L + salt * 0xD1B54A32D192ED03L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	public class Chunk implements WallGrid {
+		public final int cx, cy;
+		// Row of the passage through the right border, column of the passage through the bottom border, -1 if none
+		public final int rightLink, downLink;
+		private final MazeStore store;
+
+		private Chunk(int cx, int cy, MazeStore store) {
+			this.cx = cx;
+			this.cy = cy;
+			this.store = store;
+
+			if (parent(cx, cy) == RIGHT)
+				this.rightLink = linkPosition(cx, cy);
+			else if (parent(cx + 1, cy) == LEFT)
+				this.rightLink = linkPosition(cx + 1, cy);
+			else
+				this.rightLink = -1;
+
+			if (parent(cx, cy) == DOWN)
+				this.downLink = linkPosition(cx, cy);
+			else if (parent(cx, cy + 1) == UP)
+				this.downLink = linkPosition(cx, cy + 1);
+			else
+				this.downLink = -1;
+		}
+
+		@Override
+		public int getWidth() {
+			return ChunkedMaze.this.chunkSize;
+		}
+
+		@Override
+		public int getHeight() {
+			return ChunkedMaze.this.chunkSize;
+		}
+
+		// Passages inside the chunk only, see rightLink and downLink for the borders
+		@Override
+		public boolean isRightOpen(int position) {
+			return this.store.isRightOpen(position);
+		}
+
+		@Override
+		public boolean isDownOpen(int position) {
+			return this.store.isDownOpen(position);
+		}
+	}
+}
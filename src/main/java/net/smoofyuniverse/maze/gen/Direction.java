@@ -22,15 +22,31 @@
 
 package net.smoofyuniverse.maze.gen;
 
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 public enum Direction {
 	UP, DOWN, LEFT, RIGHT;
 
-	private static final Direction[][] combinations = new Direction[24][];
+	public static final int COMBINATIONS = 24;
 
-	public static Direction[] randomCombination(Random random) {
-		return combinations[random.nextInt(24)];
+	private static final Direction[][] combinations = new Direction[COMBINATIONS][];
+	// Ordinal of the k-th direction in bits 2k and 2k+1
+	private static final int[] packedCombinations = new int[COMBINATIONS];
+
+	public static Direction[] randomCombination(RandomGenerator random) {
+		return combinations[randomCombinationIndex(random)];
+	}
+
+	public static int randomCombinationIndex(RandomGenerator random) {
+		return random.nextInt(COMBINATIONS);
+	}
+
+	public static Direction[] combination(int index) {
+		return combinations[index];
+	}
+
+	static int packedCombination(int index) {
+		return packedCombinations[index];
 	}
 
 	static {
@@ -45,7 +61,8 @@ public enum Direction {
 					for (Direction d4 : values()) {
 						if (d4 == d1 || d4 == d2 || d4 == d3)
 							continue;
-						combinations[i++] = new Direction[]{d1, d2, d3, d4};
+						combinations[i] = new Direction[]{d1, d2, d3, d4};
+						packedCombinations[i++] = d1.ordinal() | d2.ordinal() << 2 | d3.ordinal() << 4 | d4.ordinal() << 6;
 					}
 				}
 			}
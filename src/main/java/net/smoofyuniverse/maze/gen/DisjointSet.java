@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import java.util.Arrays;
+
+public class DisjointSet {
+	// -rank for a root, parent + 1 otherwise
+	private final int[] parents;
+
+	// Counters are only updated while counting, which must stay disabled when several threads share the set
+	private boolean counting;
+	private long finds, pathLength, unions;
+
+	public DisjointSet(int size) {
+		if (size < 0)
+			throw new IllegalArgumentException("size");
+
+		this.parents = new int[size];
+	}
+
+	public int size() {
+		return this.parents.length;
+	}
+
+	public void clear() {
+		Arrays.fill(this.parents, 0);
+		resetCounters();
+	}
+
+	public int find(int i) {
+		if (this.counting)
+			return countedFind(i);
+
+		int p;
+		while ((p = this.parents[i] - 1) >= 0) {
+			int gp = this.parents[p] - 1;
+			if (gp < 0)
+				return p;
+
+			// Path halving
+			this.parents[i] = gp + 1;
+			i = gp;
+		}
+		return i;
+	}
+
+	private int countedFind(int i) {
+		this.finds++;
+
+		int p;
+		while ((p = this.parents[i] - 1) >= 0) {
+			int gp = this.parents[p] - 1;
+			if (gp < 0) {
+				this.pathLength++;
+				return p;
+			}
+
+			this.parents[i] = gp + 1;
+			this.pathLength += 2;
+			i = gp;
+		}
+		return i;
+	}
+
+	public boolean union(int a, int b) {
+		a = find(a);
+		b = find(b);
+		if (a == b)
+			return false;
+
+		int rankA = -this.parents[a], rankB = -this.parents[b];
+		if (rankA < rankB) {
+			this.parents[a] = b + 1;
+		} else {
+			this.parents[b] = a + 1;
+			if (rankA == rankB)
+				this.parents[a] = -(rankA + 1);
+		}
+
+		if (this.counting)
+			this.unions++;
+		return true;
+	}
+
+	public boolean connected(int a, int b) {
+		return find(a) == find(b);
+	}
+
+	public boolean isCounting() {
+		return this.counting;
+	}
+
+	public void setCounting(boolean value) {
+		this.counting = value;
+	}
+
+	public long getFinds() {
+		return this.finds;
+	}
+
+	public long getPathLength() {
+		return this.pathLength;
+	}
+
+	public double getAveragePathLength() {
+		return this.finds == 0 ? 0 : this.pathLength / (double) this.finds;
+	}
+
+	public long getUnions() {
+		return this.unions;
+	}
+
+	public void resetCounters() {
+		this.finds = 0;
+		this.pathLength = 0;
+		this.unions = 0;
+	}
+
+	public long memoryUsage() {
+		return 4L * this.parents.length;
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+// Phases of the generations of a maze, recorded when set as the metrics field of Maze or StreamingMaze.
+public final class GenerationMetrics {
+	public static final String FILL = "fill", SHUFFLE = "shuffle", CONNECT = "connect", STITCH = "stitch", LOOPS = "loops",
+			RENDER = "render", ENCODE = "encode", WRITE = "write";
+
+	private final List<Phase> phases = new ArrayList<>();
+
+	synchronized void add(Phase phase) {
+		this.phases.add(phase);
+	}
+
+	public synchronized List<Phase> getPhases() {
+		return Collections.unmodifiableList(new ArrayList<>(this.phases));
+	}
+
+	// The last phase with this name, or null.
+	public synchronized Phase getPhase(String name) {
+		for (int i = this.phases.size() - 1; i >= 0; i--) {
+			Phase phase = this.phases.get(i);
+			if (phase.name.equals(name))
+				return phase;
+		}
+		return null;
+	}
+
+	public synchronized long getTotalNanos() {
+		long total = 0;
+		for (Phase phase : this.phases)
+			total += phase.nanos;
+		return total;
+	}
+
+	public synchronized void clear() {
+		this.phases.clear();
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder b = new StringBuilder();
+		for (Phase phase : this.phases) {
+			if (b.length() != 0)
+				b.append('\n');
+			b.append(phase);
+		}
+		return b.toString();
+	}
+
+	public static final class Phase {
+		public final String name;
+		public final long cells, nanos;
+		// Draws that did not connect or open anything
+		public final long wastedDraws;
+		// Union-find activity, zero without groups
+		public final long finds, pathLength;
+		// Allocated by the thread that ran the phase, -1 when the JVM does not measure it
+		public final long allocatedBytes;
+
+		Phase(String name, long cells, long nanos, long wastedDraws, long finds, long pathLength, long allocatedBytes) {
+			this.name = name;
+			this.cells = cells;
+			this.nanos = nanos;
+			this.wastedDraws = wastedDraws;
+			this.finds = finds;
+			this.pathLength = pathLength;
+			this.allocatedBytes = allocatedBytes;
+		}
+
+		public double getCellsPerSecond() {
+			return this.nanos == 0 ? 0 : this.cells * 1e9 / this.nanos;
+		}
+
+		public double getAveragePathLength() {
+			return this.finds == 0 ? 0 : this.pathLength / (double) this.finds;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "%s: %.1f ms, %d cells (%.0f cells/s), wasted draws: %d, finds: %d (average path: %.2f), allocated: %d KB",
+					this.name, this.nanos / 1e6, this.cells, getCellsPerSecond(), this.wastedDraws, this.finds, getAveragePathLength(), this.allocatedBytes >> 10);
+		}
+	}
+}
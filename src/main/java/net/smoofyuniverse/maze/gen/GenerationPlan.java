@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import net.smoofyuniverse.common.task.ProgressListener;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Preflight estimate of a generation and the engine able to produce it within a heap budget.
+public final class GenerationPlan {
+	private static final long MB = 1024 * 1024;
+	// Costs per cell or per pixel in nanoseconds, measured on a single core with GenerationBenchmark and RenderBenchmark
+	private static final double KRUSKAL_NS = 600, LOOPS_NS = 100, TILED_NS = 450, ELLER_NS = 100, BITMAP_NS = 1;
+	private static final double PNG_PIXEL_NS = 11, PNG_CELL_SIDE_NS = 40;
+	// Compressed PNG size: a floor per cell for small cells, per pixel for large ones
+	private static final double PNG_CELL_BYTES = 0.35, PNG_PIXEL_BYTES = 0.012;
+	// SVG size per cell of a perfect maze and of a maze where all walls could be removed, and cost per cell
+	private static final double SVG_CELL_BYTES = 7, SVG_LOOPS_BYTES = 5, SVG_NS = 60;
+	// The pool is only worth its scheduling from about a million cells
+	private static final long TILED_MIN_SIZE = 1 << 20;
+
+	public final int width, height, whitePx, blackPx, parallelism;
+	public final double errorFactor;
+	public final Format format;
+	public final Engine engine;
+	// Algorithm drawing the passages: with the seed, it identifies the maze produced
+	public final Algorithm algorithm;
+	// Mazes of the historical single Random generator, see legacy()
+	public final boolean legacy;
+	public final long size, imageWidth, imageHeight, heapBytes, outputBytes;
+	public final double seconds;
+
+	private final long heapBudget;
+
+	private GenerationPlan(int width, int height, int whitePx, int blackPx, double errorFactor, Format format, long heapBudget, int parallelism, boolean legacy) {
+		if (width <= 0)
+			throw new IllegalArgumentException("width");
+		if (height <= 0)
+			throw new IllegalArgumentException("height");
+		if (whitePx <= 0)
+			throw new IllegalArgumentException("whitePx");
+		if (blackPx < 0)
+			throw new IllegalArgumentException("blackPx");
+		if (errorFactor < 0 || errorFactor > 1)
+			throw new IllegalArgumentException("errorFactor");
+		if (format == null)
+			throw new IllegalArgumentException("format");
+		if (heapBudget <= 0)
+			throw new IllegalArgumentException("heapBudget");
+		if (parallelism <= 0)
+			throw new IllegalArgumentException("parallelism");
+
+		this.width = width;
+		this.height = height;
+		this.whitePx = whitePx;
+		this.blackPx = blackPx;
+		this.errorFactor = errorFactor;
+		this.format = format;
+		this.parallelism = parallelism;
+		this.heapBudget = heapBudget;
+		this.legacy = legacy;
+		this.size = (long) width * height;
+		this.imageWidth = RowRenderer.imageSize(width, whitePx, blackPx);
+		this.imageHeight = RowRenderer.imageSize(height, whitePx, blackPx);
+
+		if (format == Format.PNG && (this.imageWidth > Integer.MAX_VALUE || this.imageHeight > Integer.MAX_VALUE))
+			throw new IllegalArgumentException("The image would be " + this.imageWidth + "x" + this.imageHeight + " pixels, PNG is limited to " + Integer.MAX_VALUE + " pixels per side");
+
+		long output = outputHeap();
+		if (legacy) {
+			if (this.size > Integer.MAX_VALUE || legacyHeap() + output > heapBudget)
+				throw new IllegalArgumentException("The historical generator needs " + (legacyHeap() + output) / MB + " MB of heap but only " + heapBudget / MB + " MB are available");
+			this.engine = Engine.IN_MEMORY;
+			this.heapBytes = legacyHeap() + output;
+		} else if (this.size <= Integer.MAX_VALUE && parallelism > 1 && this.size >= TILED_MIN_SIZE && tiledHeap() + output <= heapBudget) {
+			this.engine = Engine.TILED;
+			this.heapBytes = tiledHeap() + output;
+		} else if (this.size <= Integer.MAX_VALUE && inMemoryHeap() + output <= heapBudget) {
+			this.engine = Engine.IN_MEMORY;
+			this.heapBytes = inMemoryHeap() + output;
+		} else if (streamingHeap() + output <= heapBudget) {
+			this.engine = Engine.STREAMING;
+			this.heapBytes = streamingHeap() + output;
+		} else {
+			throw new IllegalArgumentException("Even streamed, a width of " + width + " cells needs " + (streamingHeap() + output) / MB + " MB of heap but only " + heapBudget / MB + " MB are available");
+		}
+
+		this.algorithm = legacy ? Algorithm.KRUSKAL : this.engine == Engine.STREAMING ? Algorithm.ELLER : Algorithm.TILED_KRUSKAL;
+		this.outputBytes = outputBytes();
+		this.seconds = (this.size * generationNanos() + outputNanos()) / 1e9;
+	}
+
+	public static GenerationPlan of(int width, int height, int whitePx, int blackPx, double errorFactor, Format format) {
+		return of(width, height, whitePx, blackPx, errorFactor, format, defaultHeapBudget(), ForkJoinPool.commonPool().getParallelism());
+	}
+
+	// Throws an IllegalArgumentException explaining why when no engine can produce the maze.
+	public static GenerationPlan of(int width, int height, int whitePx, int blackPx, double errorFactor, Format format, long heapBudget, int parallelism) {
+		return new GenerationPlan(width, height, whitePx, blackPx, errorFactor, format, heapBudget, parallelism, false);
+	}
+
+	// Same plan with the single Random generator of the first versions, which reproduces the mazes of their seeds.
+	// Its passages are drawn in a sequential order: it runs in memory on one thread.
+	public GenerationPlan legacy() {
+		return this.legacy ? this : new GenerationPlan(this.width, this.height, this.whitePx, this.blackPx, this.errorFactor, this.format, this.heapBudget, this.parallelism, true);
+	}
+
+	public static long defaultHeapBudget() {
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.maxMemory() * 3 / 4;
+	}
+
+	private long legacyHeap() {
+		// Compact store with union-find plus the 4 bytes queue of all cells
+		return MazeStore.memoryUsage(this.size, true) + 4 * this.size + MB;
+	}
+
+	private long inMemoryHeap() {
+		return tilesHeap(1);
+	}
+
+	private long tiledHeap() {
+		return tilesHeap(this.parallelism);
+	}
+
+	private long tilesHeap(int threads) {
+		// Compact store with union-find, the queue of the tile connected by each thread and the 8 bytes edges between tiles
+		long tileCells = (long) TiledGenerator.TILE_SIDE * TiledGenerator.TILE_SIDE;
+		long edges = (long) (TiledGenerator.tiles(this.width) - 1) * this.height + (long) (TiledGenerator.tiles(this.height) - 1) * this.width;
+		return MazeStore.memoryUsage(this.size, true) + 4 * Math.min(this.size, threads * tileCells) + 8 * edges + MB;
+	}
+
+	private long streamingHeap() {
+		// Labels, parents, counts, forced and descending flags of one row, plus the row bitsets
+		return 18L * this.width + MB;
+	}
+
+	private long outputHeap() {
+		long rows = 2 * 8 * ((this.width + 63L) >>> 6);
+		switch (this.format) {
+			case PNG:
+				// Line blocks and rendered lines of PngRowSink, plus the compressor
+				long stride = (this.imageWidth + 7) >>> 3;
+				return 3 * Math.max(1 << 16, stride + 1) + 2 * stride + (1 << 16) + 256 * 1024;
+			case SVG:
+				// Rows, runs in progress and buffer of SvgRowSink
+				return 2 * rows + 4L * this.width + (1 << 16);
+			default:
+				return rows + (1 << 16);
+		}
+	}
+
+	private long outputBytes() {
+		switch (this.format) {
+			case PNG:
+				return (long) Math.max(this.size * PNG_CELL_BYTES, this.imageWidth * (double) this.imageHeight * PNG_PIXEL_BYTES);
+			case SVG:
+				return (long) (this.size * (SVG_CELL_BYTES + SVG_LOOPS_BYTES * this.errorFactor));
+			default:
+				return MazeFile.HEADER_SIZE + MazeFile.bitmapLength(this.size);
+		}
+	}
+
+	private double generationNanos() {
+		switch (this.engine) {
+			case IN_MEMORY:
+				return (this.legacy ? KRUSKAL_NS : TILED_NS) + LOOPS_NS * this.errorFactor;
+			case TILED:
+				return (TILED_NS + LOOPS_NS * this.errorFactor) / this.parallelism;
+			default:
+				return ELLER_NS;
+		}
+	}
+
+	private double outputNanos() {
+		switch (this.format) {
+			case PNG:
+				return this.imageWidth * (double) this.imageHeight * (PNG_PIXEL_NS + PNG_CELL_SIDE_NS / (this.whitePx + this.blackPx));
+			case SVG:
+				return this.size * SVG_NS;
+			default:
+				return this.size * BITMAP_NS;
+		}
+	}
+
+	public void execute(long seed, Path file, ProgressListener listener) throws IOException {
+		execute(seed, file, listener, null);
+	}
+
+	// Metrics may be null.
+	public void execute(long seed, Path file, ProgressListener listener, GenerationMetrics metrics) throws IOException {
+		if (this.engine == Engine.STREAMING) {
+			stream(seed, file, listener, metrics);
+			return;
+		}
+
+		Maze maze = new Maze(this.width, this.height, true);
+		maze.listener = listener;
+		maze.metrics = metrics;
+		maze.fill();
+		Algorithm algorithm = generate(maze, seed);
+
+		if (listener != null && listener.isCancelled())
+			return;
+
+		switch (this.format) {
+			case PNG:
+				maze.writeImage(file, this.whitePx, this.blackPx);
+				break;
+			case SVG:
+				maze.writeSvg(file, this.whitePx, this.blackPx);
+				break;
+			default:
+				maze.save(file, seed, this.errorFactor, algorithm);
+		}
+	}
+
+	// Connects a filled maze of the planned size as execute does, the engine must not be STREAMING.
+	// Both other engines give the same maze for the same seed.
+	public Algorithm generate(Maze maze, long seed) {
+		if (maze.width != this.width || maze.height != this.height)
+			throw new IllegalArgumentException("maze");
+		if (this.engine == Engine.STREAMING)
+			throw new IllegalStateException("Streamed mazes are not kept in memory");
+
+		if (this.legacy)
+			maze.connectAll(new Random(seed), this.errorFactor);
+		else
+			TiledGenerator.of(maze).generate(seed, this.errorFactor, this.engine == Engine.TILED ? ForkJoinPool.commonPool() : null);
+		return this.algorithm;
+	}
+
+	private void stream(long seed, Path file, ProgressListener listener, GenerationMetrics metrics) throws IOException {
+		StreamingMaze maze = new StreamingMaze(this.width, this.height);
+		maze.listener = listener;
+		maze.metrics = metrics;
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			if (this.format == Format.PNG) {
+				try (PngRowSink png = new PngRowSink(channel, this.width, this.height, this.whitePx, this.blackPx)) {
+					maze.generate(new Random(seed), this.errorFactor, png);
+					if (listener == null || !listener.isCancelled()) {
+						PhaseTimer timer = PhaseTimer.start(metrics, GenerationMetrics.ENCODE, this.size, null);
+						png.finish();
+						timer.stop();
+					}
+				}
+			} else if (this.format == Format.SVG) {
+				SvgRowSink svg = new SvgRowSink(channel, this.width, this.height, this.whitePx, this.blackPx);
+				maze.generate(new Random(seed), this.errorFactor, svg);
+				if (listener == null || !listener.isCancelled()) {
+					PhaseTimer timer = PhaseTimer.start(metrics, GenerationMetrics.ENCODE, this.size, null);
+					svg.finish();
+					timer.stop();
+				}
+			} else {
+				BitmapRowSink sink = MazeFile.createSink(channel, this.width, this.height, seed, this.errorFactor, this.algorithm);
+				maze.generate(new Random(seed), this.errorFactor, sink);
+				if (listener == null || !listener.isCancelled()) {
+					PhaseTimer timer = PhaseTimer.start(metrics, GenerationMetrics.WRITE, this.size, null);
+					sink.finish();
+					timer.stop();
+				}
+			}
+		}
+
+		// A cancelled stream leaves a truncated file
+		if (listener != null && listener.isCancelled())
+			Files.deleteIfExists(file);
+	}
+
+	public enum Format {
+		PNG, SVG, BINARY;
+
+		// From the extension of the file, PNG by default.
+		public static Format of(Path file) {
+			String name = file.getFileName().toString();
+			if (name.endsWith(".maze"))
+				return BINARY;
+			if (name.endsWith(".svg"))
+				return SVG;
+			return PNG;
+		}
+	}
+
+	// STREAMING draws the passages row by row with Eller's algorithm: its mazes differ from the other engines for the same seed,
+	// which is why the algorithm of a plan must be shown with its seed.
+	public enum Engine {
+		IN_MEMORY, TILED, STREAMING
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import net.smoofyuniverse.maze.gen.GenerationMetrics.Phase;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+// Totals per phase name of all the generations of the JVM, exposed over JMX once registered.
+public final class GenerationStats implements GenerationStatsMXBean {
+	public static final String OBJECT_NAME = "net.smoofyuniverse.maze:type=GenerationStats";
+	public static final GenerationStats INSTANCE = new GenerationStats();
+
+	private static volatile boolean enabled;
+
+	private final Map<String, Totals> totals = new TreeMap<>();
+
+	private GenerationStats() {}
+
+	// Starts recording and registers the bean on the platform MBean server, does nothing when already registered.
+	public static synchronized void register() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(OBJECT_NAME);
+		if (!server.isRegistered(name))
+			server.registerMBean(INSTANCE, name);
+		enabled = true;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	synchronized void record(Phase phase) {
+		Totals t = this.totals.computeIfAbsent(phase.name, k -> new Totals());
+		t.count++;
+		t.nanos += phase.nanos;
+		t.cells += phase.cells;
+		t.wastedDraws += phase.wastedDraws;
+		t.finds += phase.finds;
+		t.pathLength += phase.pathLength;
+		if (phase.allocatedBytes > 0)
+			t.allocatedBytes += phase.allocatedBytes;
+	}
+
+	@Override
+	public synchronized long getPhaseCount() {
+		long count = 0;
+		for (Totals t : this.totals.values())
+			count += t.count;
+		return count;
+	}
+
+	@Override
+	public Map<String, Long> getNanos() {
+		return longs(t -> t.nanos);
+	}
+
+	@Override
+	public Map<String, Long> getCells() {
+		return longs(t -> t.cells);
+	}
+
+	@Override
+	public Map<String, Double> getCellsPerSecond() {
+		return doubles(t -> t.nanos == 0 ? 0 : t.cells * 1e9 / t.nanos);
+	}
+
+	@Override
+	public Map<String, Long> getWastedDraws() {
+		return longs(t -> t.wastedDraws);
+	}
+
+	@Override
+	public Map<String, Double> getAveragePathLength() {
+		return doubles(t -> t.finds == 0 ? 0 : t.pathLength / (double) t.finds);
+	}
+
+	@Override
+	public Map<String, Long> getAllocatedBytes() {
+		return longs(t -> t.allocatedBytes);
+	}
+
+	@Override
+	public synchronized void reset() {
+		this.totals.clear();
+	}
+
+	private synchronized Map<String, Long> longs(ToLongFunction<Totals> f) {
+		Map<String, Long> map = new TreeMap<>();
+		this.totals.forEach((name, t) -> map.put(name, f.applyAsLong(t)));
+		return map;
+	}
+
+	private synchronized Map<String, Double> doubles(ToDoubleFunction<Totals> f) {
+		Map<String, Double> map = new TreeMap<>();
+		this.totals.forEach((name, t) -> map.put(name, f.applyAsDouble(t)));
+		return map;
+	}
+
+	private static final class Totals {
+		long count, nanos, cells, wastedDraws, finds, pathLength, allocatedBytes;
+	}
+}
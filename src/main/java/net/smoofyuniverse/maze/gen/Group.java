@@ -22,21 +22,27 @@
 
 package net.smoofyuniverse.maze.gen;
 
-public class Group {
-	private Group parent;
+public abstract class Group {
+	public final DisjointSet set;
+	public final int index;
 
-	public final boolean append(Group g) {
-		Group a = top(), b = g.top();
-		if (a == b)
-			return false;
+	protected Group(DisjointSet set, int index) {
+		if (index < 0 || index >= set.size())
+			throw new IllegalArgumentException("index");
 
-		a.parent = b;
-		return true;
+		this.set = set;
+		this.index = index;
+	}
+
+	public final boolean append(Group g) {
+		if (g.set != this.set)
+			throw new IllegalArgumentException("g");
+		return this.set.union(this.index, g.index);
 	}
 
 	public final Group top() {
-		if (this.parent == null)
-			return this;
-		return this.parent = this.parent.top();
+		return group(this.set.find(this.index));
 	}
+
+	protected abstract Group group(int index);
 }
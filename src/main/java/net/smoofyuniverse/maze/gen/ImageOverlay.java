@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.smoofyuniverse.maze.gen;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.util.Arrays;
+
+// Indexed copy of a rendered maze on which cells and passages can be colored.
+public class ImageOverlay {
+	public static final int BLACK = 0, WHITE = 1;
+
+	public final int whitePx, blackPx;
+	private final BufferedImage image;
+	private final byte[] data;
+	private final int stride;
+
+	// The palette starts with black and white, the other colors are used by fill methods.
+	public ImageOverlay(BufferedImage maze, int whitePx, int blackPx, int[] palette) {
+		if (maze.getType() != BufferedImage.TYPE_BYTE_BINARY)
+			throw new IllegalArgumentException("maze");
+		if (palette.length < 2 || palette.length > 256)
+			throw new IllegalArgumentException("palette");
+
+		int width = maze.getWidth(), height = maze.getHeight();
+		if ((long) width * height > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("maze");
+
+		this.whitePx = whitePx;
+		this.blackPx = blackPx;
+		this.image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED,
+				new IndexColorModel(8, palette.length, palette, 0, false, -1, DataBufferByte.TYPE_BYTE));
+		this.data = ((DataBufferByte) this.image.getRaster().getDataBuffer()).getData();
+		this.stride = width;
+
+		byte[] bits = ((DataBufferByte) maze.getRaster().getDataBuffer()).getData();
+		int bitStride = (width + 7) >>> 3;
+		for (int y = 0; y < height; y++) {
+			int src = y * bitStride, dst = y * width;
+			for (int x = 0; x < width; x++)
+				this.data[dst + x] = (byte) ((bits[src + (x >>> 3)] >>> (7 - (x & 7))) & 1);
+		}
+	}
+
+	public static int[] palette(int... colors) {
+		int[] palette = new int[colors.length + 2];
+		palette[BLACK] = 0x000000;
+		palette[WHITE] = 0xFFFFFF;
+		System.arraycopy(colors, 0, palette, 2, colors.length);
+		return palette;
+	}
+
+	public void fillCell(int x, int y, int color) {
+		int step = this.whitePx + this.blackPx;
+		fill(this.blackPx + x * step, this.blackPx + y * step, this.whitePx, this.whitePx, color);
+	}
+
+	// Passage between (x, y) and (x + 1, y)
+	public void fillRight(int x, int y, int color) {
+		int step = this.whitePx + this.blackPx;
+		fill(x * step + step, this.blackPx + y * step, this.blackPx, this.whitePx, color);
+	}
+
+	// Passage between (x, y) and (x, y + 1)
+	public void fillDown(int x, int y, int color) {
+		int step = this.whitePx + this.blackPx;
+		fill(this.blackPx + x * step, y * step + step, this.whitePx, this.blackPx, color);
+	}
+
+	private void fill(int px, int py, int w, int h, int color) {
+		for (int row = py; row < py + h; row++) {
+			int offset = row * this.stride + px;
+			Arrays.fill(this.data, offset, offset + w, (byte) color);
+		}
+	}
+
+	public BufferedImage getImage() {
+		return this.image;
+	}
+}
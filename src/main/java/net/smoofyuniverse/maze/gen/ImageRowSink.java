@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.Arrays;
+
+public class ImageRowSink implements RowSink {
+	public final int width, height, whitePx, blackPx;
+	public final RowRenderer renderer;
+	private final BufferedImage image;
+	private final byte[] data;
+
+	public ImageRowSink(int width, int height, int whitePx, int blackPx) {
+		this(width, height, whitePx, blackPx, null);
+	}
+
+	// Reuses the given image, which must fit the maze, or creates one when null.
+	public ImageRowSink(int width, int height, int whitePx, int blackPx, BufferedImage image) {
+		if (height <= 0)
+			throw new IllegalArgumentException("height");
+
+		this.renderer = new RowRenderer(width, whitePx, blackPx);
+		long imgHeight = RowRenderer.imageSize(height, whitePx, blackPx);
+		if (imgHeight * this.renderer.stride > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("height");
+
+		this.width = width;
+		this.height = height;
+		this.whitePx = whitePx;
+		this.blackPx = blackPx;
+
+		if (image == null) {
+			this.image = new BufferedImage(this.renderer.imageWidth, (int) imgHeight, BufferedImage.TYPE_BYTE_BINARY);
+			this.data = ((DataBufferByte) this.image.getRaster().getDataBuffer()).getData();
+		} else {
+			if (!fits(image, width, height, whitePx, blackPx))
+				throw new IllegalArgumentException("image");
+			this.image = image;
+			this.data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+			// Rows are fully rewritten, except the top border
+			Arrays.fill(this.data, 0, blackPx * this.renderer.stride, (byte) 0);
+		}
+	}
+
+	public static boolean fits(BufferedImage image, int width, int height, int whitePx, int blackPx) {
+		return image != null && image.getType() == BufferedImage.TYPE_BYTE_BINARY && image.getColorModel().getPixelSize() == 1 && image.getRaster().getParent() == null
+				&& image.getWidth() == RowRenderer.imageSize(width, whitePx, blackPx) && image.getHeight() == RowRenderer.imageSize(height, whitePx, blackPx);
+	}
+
+	@Override
+	public void accept(int y, long[] right, long[] down) {
+		int stride = this.renderer.stride;
+		int offset = (this.blackPx + y * (this.whitePx + this.blackPx)) * stride;
+
+		this.renderer.renderCells(right, this.data, offset);
+		for (int i = 1; i < this.whitePx; i++)
+			System.arraycopy(this.data, offset, this.data, offset + i * stride, stride);
+
+		offset += this.whitePx * stride;
+		if (this.blackPx != 0) {
+			this.renderer.renderWalls(down, this.data, offset);
+			for (int i = 1; i < this.blackPx; i++)
+				System.arraycopy(this.data, offset, this.data, offset + i * stride, stride);
+		}
+	}
+
+	// Draws again the cells of a rectangle and the walls around them, reading the passages of the rectangle and of the cells above and to its left.
+	public void render(WallGrid grid, int x, int y, int width, int height) {
+		if (grid.getWidth() != this.width || grid.getHeight() != this.height)
+			throw new IllegalArgumentException("grid");
+		if (x < 0 || x >= this.width)
+			throw new IllegalArgumentException("x");
+		if (y < 0 || y >= this.height)
+			throw new IllegalArgumentException("y");
+		if (width <= 0 || width > this.width - x)
+			throw new IllegalArgumentException("width");
+		if (height <= 0 || height > this.height - y)
+			throw new IllegalArgumentException("height");
+
+		int stride = this.renderer.stride, step = this.whitePx + this.blackPx;
+		int from = x * step, to = (x + width) * step + this.blackPx;
+
+		for (int cy = y - 1; cy < y + height; cy++) {
+			int pos = cy * this.width + x;
+			if (cy >= y) {
+				int offset = (this.blackPx + cy * step) * stride;
+				RowRenderer.clearBits(this.data, offset, from, to);
+				if (x != 0 && grid.isRightOpen(pos - 1))
+					RowRenderer.setBits(this.data, offset, from, from + this.blackPx);
+				for (int cx = x; cx < x + width; cx++) {
+					int start = this.blackPx + cx * step;
+					RowRenderer.setBits(this.data, offset, start, start + (grid.isRightOpen(pos + cx - x) ? step : this.whitePx));
+				}
+				for (int i = 1; i < this.whitePx; i++)
+					copyBits(offset, offset + i * stride, from, to);
+			}
+
+			// Walls below the row, or the top border
+			if (this.blackPx != 0) {
+				int offset = (cy + 1) * step * stride;
+				RowRenderer.clearBits(this.data, offset, from, to);
+				if (cy >= 0) {
+					for (int cx = x; cx < x + width; cx++) {
+						if (grid.isDownOpen(pos + cx - x)) {
+							int start = this.blackPx + cx * step;
+							RowRenderer.setBits(this.data, offset, start, start + this.whitePx);
+						}
+					}
+				}
+				for (int i = 1; i < this.blackPx; i++)
+					copyBits(offset, offset + i * stride, from, to);
+			}
+		}
+	}
+
+	private void copyBits(int source, int target, int from, int to) {
+		int first = from >>> 3, last = (to - 1) >>> 3;
+		int head = 0xFF >>> (from & 7), tail = (0xFF << (7 - ((to - 1) & 7))) & 0xFF;
+		if (first == last) {
+			int mask = head & tail;
+			this.data[target + first] = (byte) ((this.data[target + first] & ~mask) | (this.data[source + first] & mask));
+		} else {
+			this.data[target + first] = (byte) ((this.data[target + first] & ~head) | (this.data[source + first] & head));
+			System.arraycopy(this.data, source + first + 1, this.data, target + first + 1, last - first - 1);
+			this.data[target + last] = (byte) ((this.data[target + last] & ~tail) | (this.data[source + last] & tail));
+		}
+	}
+
+	public BufferedImage getImage() {
+		return this.image;
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import java.util.random.RandomGenerator;
+
+// Draws values in random passes: every value is returned once per pass, then a new pass begins.
+// A drawn value can be removed so that it is never returned again, even in the following passes.
+public class IntRandomQueue {
+	private final int[] values;
+	private RandomGenerator random;
+	// [0, remainingSize): not yet drawn in this pass, [remainingSize, size): drawn, [size, length): removed
+	private int size, remainingSize;
+
+	public IntRandomQueue(int size, RandomGenerator random) {
+		if (size < 0)
+			throw new IllegalArgumentException("size");
+
+		this.values = new int[size];
+		this.random = random;
+		fill();
+	}
+
+	public void setRandom(RandomGenerator random) {
+		this.random = random;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	public int capacity() {
+		return this.values.length;
+	}
+
+	// Puts back all values in their initial order: the queue then draws the same values as a new one.
+	public void fill() {
+		for (int i = 0; i < this.values.length; i++)
+			this.values[i] = i;
+		reset();
+	}
+
+	// Starts a new pass with all values, including the removed ones.
+	public void reset() {
+		this.size = this.values.length;
+		this.remainingSize = 0;
+	}
+
+	public int next() {
+		if (this.remainingSize == 0)
+			this.remainingSize = this.size;
+		int index = this.random.nextInt(this.remainingSize);
+		int value = this.values[index];
+		this.remainingSize--;
+		this.values[index] = this.values[this.remainingSize];
+		this.values[this.remainingSize] = value;
+		return value;
+	}
+
+	// Removes the value returned by the last call to next().
+	public void remove() {
+		int last = this.values[this.remainingSize];
+		this.size--;
+		this.values[this.remainingSize] = this.values[this.size];
+		this.values[this.size] = last;
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.smoofyuniverse.maze.gen;
+
+import java.util.random.RandomGenerator;
+
+// Randomized Kruskal: cells are drawn at random and try their directions in a random order.
+public class KruskalGenerator extends AbstractMazeGenerator {
+
+	@Override
+	public Algorithm getAlgorithm() {
+		return Algorithm.KRUSKAL;
+	}
+
+	@Override
+	public MazeStore createStore(int width, int height) {
+		return new MazeStore(width, height, true);
+	}
+
+	@Override
+	public long memoryUsage(int width, int height) {
+		long size = (long) width * height;
+		return MazeStore.memoryUsage(size, true) + 4 * size;
+	}
+
+	@Override
+	protected void carve(MazeStore store, RandomGenerator random) {
+		if (!store.hasGroups())
+			throw new IllegalArgumentException("store");
+
+		for (int i = 0; i < store.size; i++)
+			store.shuffleCombination(i, random);
+
+		int max = store.size - 1, connections = 0;
+		IntRandomQueue queue = new IntRandomQueue(store.size, random);
+		while (connections < max) {
+			if (store.tryConnect(queue.next())) {
+				if (progress(++connections))
+					return;
+			} else {
+				queue.remove();
+			}
+		}
+	}
+}
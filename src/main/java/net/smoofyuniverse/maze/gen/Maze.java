@@ -24,18 +24,33 @@ package net.smoofyuniverse.maze.gen;
 
 import net.smoofyuniverse.common.task.ProgressListener;
 
-import java.awt.*;
+import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.random.RandomGenerator;
 
-public class Maze {
+public class Maze implements WallGrid {
 	public final int width, height, size;
 	public final Point[] points;
+	public final MazeStore store;
+	public final DisjointSet groups;
 	public ProgressListener listener;
-
-	private double lastUpdate;
+	public GenerationMetrics metrics;
+	// Kept between seeded generations only, on a compact maze of the same size
+	private TiledGenerator tiled;
 	
 	public Maze(int width, int height) {
+		this(width, height, false);
+	}
+
+	public Maze(int width, int height, boolean compact) {
 		if (width <= 0)
 			throw new IllegalArgumentException("width");
 		if (height <= 0)
@@ -44,18 +59,117 @@ public class Maze {
 		this.width = width;
 		this.height = height;
 		this.size = width * height;
-		this.points = new Point[this.size];
+
+		if (compact) {
+			this.points = null;
+			this.store = new MazeStore(width, height);
+			this.groups = this.store.groups;
+		} else {
+			this.points = new Point[this.size];
+			this.store = null;
+			this.groups = new DisjointSet(this.size);
+		}
+	}
+
+	public Maze(MazeStore store) {
+		this.width = store.width;
+		this.height = store.height;
+		this.size = store.size;
+		this.points = null;
+		this.store = store;
+		this.groups = store.groups;
+	}
+
+	public boolean isCompact() {
+		return this.store != null;
 	}
 
 	public void fill() {
-		forceUpdate(0);
+		PhaseTimer timer = PhaseTimer.start(this.metrics, GenerationMetrics.FILL, this.size, null);
+		if (this.store != null) {
+			this.store.clear();
+			timer.stop();
+			return;
+		}
+
+		try (ProgressChannel progress = ProgressChannel.open(this.listener)) {
+			progress.phase(this.size);
+			this.groups.clear();
+			for (int i = 0; i < this.size; i++) {
+				if (this.points[i] == null)
+					this.points[i] = new Point(i);
+				else
+					this.points[i].clear();
+				if ((i & ProgressChannel.CHUNK_MASK) == 0)
+					progress.report(i);
+			}
+		}
+		timer.stop();
+	}
+
+	public static Maze load(Path file) throws IOException {
+		return MazeFile.open(file).toMaze();
+	}
+
+	public void save(Path file, long seed, double errorFactor, Algorithm algorithm) throws IOException {
+		PhaseTimer timer = PhaseTimer.start(this.metrics, GenerationMetrics.WRITE, this.size, null);
+		MazeFile.write(file, this, seed, errorFactor, algorithm);
+		timer.stop();
+	}
+
+	@Override
+	public int getWidth() {
+		return this.width;
+	}
+
+	@Override
+	public int getHeight() {
+		return this.height;
+	}
+
+	@Override
+	public boolean isRightOpen(int position) {
+		return this.store != null ? this.store.isRightOpen(position) : this.points[position].right;
+	}
+
+	@Override
+	public boolean isDownOpen(int position) {
+		return this.store != null ? this.store.isDownOpen(position) : this.points[position].down;
+	}
+
+	// Same maze as TiledGenerator, GenerationPlan and MazeService for the same seed.
+	// Points are connected as the passages of a compact maze generated aside.
+	public void connectAll(long seed, double errorFactor) {
+		if (this.tiled == null)
+			this.tiled = TiledGenerator.of(this.store != null ? this : new Maze(this.width, this.height, true));
+
+		Maze maze = this.tiled.maze;
+		if (maze != this) {
+			maze.listener = this.listener;
+			maze.metrics = this.metrics;
+			maze.fill();
+		}
+		this.tiled.generate(seed, errorFactor, null);
+		if (maze == this || (this.listener != null && this.listener.isCancelled()))
+			return;
 
 		for (int i = 0; i < this.size; i++) {
-			this.points[i] = new Point(i);
-			update(i / (double) this.size);
+			if (maze.store.isRightOpen(i)) {
+				this.points[i].right = true;
+				this.groups.union(i, i + 1);
+			}
+			if (maze.store.isDownOpen(i)) {
+				this.points[i].down = true;
+				this.groups.union(i, i + this.width);
+			}
 		}
+	}
 
-		forceUpdate(1);
+	// Same maze as fill() then connectAll(long, double).
+	// The tiled generator and its queue are kept between calls.
+	public void regenerate(long seed, double errorFactor) {
+		fill();
+		connectAll(seed, errorFactor);
 	}
 
 	public void connectAll(Random random, double errorFactor) {
@@ -67,102 +181,334 @@ public class Maze {
 		if (this.listener != null)
 			this.listener.setCancelled(false);
 
-		forceUpdate(0);
-
-		for (int i = 0; i < this.size; i++) {
-			this.points[i].shuffleCombinations(random);
-			update(i / (double) this.size);
-		}
-
-		forceUpdate(0);
+		try (ProgressChannel progress = ProgressChannel.open(this.listener)) {
+			PhaseTimer timer = PhaseTimer.start(this.metrics, GenerationMetrics.SHUFFLE, this.size, null);
+			progress.phase(this.size);
+			for (int i = 0; i < this.size; i++) {
+				if (this.store != null)
+					this.store.shuffleCombination(i, random);
+				else
+					this.points[i].shuffleCombinations(random);
+				if ((i & ProgressChannel.CHUNK_MASK) == 0)
+					progress.report(i);
+			}
+			timer.stop();
+
+			timer = PhaseTimer.start(this.metrics, GenerationMetrics.CONNECT, this.size, this.groups);
+			int max = this.size - 1, connections = 0;
+			long draws = 0;
+			progress.phase(max);
+			IntRandomQueue queue = new IntRandomQueue(this.size, random);
+			while (connections < max) {
+				draws++;
+				if (tryConnect(queue.next())) {
+					if ((++connections & ProgressChannel.CHUNK_MASK) == 0) {
+						progress.report(connections);
+						if (progress.isCancelled()) {
+							timer.stop(draws - connections);
+							return;
+						}
+					}
+				}
+			}
+			timer.stop(draws - connections);
+
+			int errors = (int) ((this.size - this.width - this.height + 1) * errorFactor);
+			if (errors == 0)
+				return;
+
+			timer = PhaseTimer.start(this.metrics, GenerationMetrics.LOOPS, errors, this.groups);
+			progress.phase(this.size);
+			for (int i = 0; i < this.size; i++) {
+				if (this.store != null)
+					this.store.resetIndex(i);
+				else
+					this.points[i].resetIndex();
+				if ((i & ProgressChannel.CHUNK_MASK) == 0)
+					progress.report(i);
+			}
 
-		int max = this.size - 1, connections = 0;
-		RandomQueue<Point> queue = RandomQueue.of(this.points, random);
-		while (this.listener == null || !this.listener.isCancelled()) {
-			if (queue.next().tryConnect()) {
-				update(++connections / (double) max);
-				if (connections == max)
-					break;
+			connections = 0;
+			draws = 0;
+			progress.phase(errors);
+			queue.reset();
+			while (connections < errors) {
+				draws++;
+				if (forceConnect(queue.next()) && (++connections & ProgressChannel.CHUNK_MASK) == 0) {
+					progress.report(connections);
+					if (progress.isCancelled())
+						break;
+				}
 			}
+			timer.stop(draws - connections);
 		}
+	}
 
-		if (this.listener != null && this.listener.isCancelled())
-			return;
+	public void generate(MazeGenerator generator, RandomGenerator random) {
+		if (this.store == null)
+			throw new IllegalStateException("Maze is not compact");
 
-		forceUpdate(1);
+		PhaseTimer timer = PhaseTimer.start(this.metrics, GenerationMetrics.CONNECT, this.size, this.groups);
+		generator.generate(this.store, random, this.listener);
+		timer.stop();
+	}
+
+	// Opens closed internal walls of a perfect maze at random, as connectAll does with the error factor.
+	public void insertLoops(double errorFactor, RandomGenerator random) {
+		if (errorFactor < 0 || errorFactor > 1)
+			throw new IllegalArgumentException("errorFactor");
+		if (random == null)
+			throw new IllegalArgumentException("random");
 
 		int errors = (int) ((this.size - this.width - this.height + 1) * errorFactor);
 		if (errors == 0)
 			return;
 
-		forceUpdate(0);
+		if (this.listener != null)
+			this.listener.setCancelled(false);
 
-		for (int i = 0; i < this.size; i++) {
-			this.points[i].resetIndex();
-			update(i / (double) this.size);
+		try (ProgressChannel progress = ProgressChannel.open(this.listener)) {
+			PhaseTimer timer = PhaseTimer.start(this.metrics, GenerationMetrics.LOOPS, errors, null);
+			timer.stop(insertLoops(errors, random, progress));
 		}
+	}
 
-		forceUpdate(0);
+	// Walls are identified by edge ids: 2 * position for the right wall, 2 * position + 1 for the down wall.
+	// Returns the number of draws that hit an open or border wall.
+	private long insertLoops(int errors, RandomGenerator random, ProgressChannel progress) {
+		int closed = this.size - this.width - this.height + 1;
+		long edges = 2L * this.size;
+
+		if (errors <= closed / 2) {
+			// At least a quarter of the draws hit a wall that is still closed
+			progress.phase(errors);
+			int opened = 0;
+			long draws = 0;
+			while (opened < errors) {
+				long edge = random.nextLong(edges);
+				draws++;
+				if (isClosedWall(edge)) {
+					open(edge);
+					if ((++opened & ProgressChannel.CHUNK_MASK) == 0) {
+						progress.report(opened);
+						if (progress.isCancelled())
+							break;
+					}
+				}
+			}
+			return draws - opened;
+		} else {
+			// Cheaper to draw the walls that stay closed and open all others
+			progress.phase(edges);
+			int kept = 0, keep = closed - errors;
+			long draws = 0;
+			long[] kepts = new long[(int) ((edges + 63) >>> 6)];
+			while (kept < keep) {
+				long edge = random.nextLong(edges);
+				draws++;
+				if ((kepts[(int) (edge >>> 6)] & (1L << edge)) == 0 && isClosedWall(edge)) {
+					kepts[(int) (edge >>> 6)] |= 1L << edge;
+					if ((++kept & ProgressChannel.CHUNK_MASK) == 0 && progress.isCancelled())
+						return draws - kept;
+				}
+			}
 
-		connections = 0;
-		queue.reset();
-		while (this.listener == null || !this.listener.isCancelled()) {
-			if (queue.next().forceConnect()) {
-				update(++connections / (double) errors);
-				if (connections == errors)
-					break;
+			for (long edge = 0; edge < edges; edge++) {
+				if ((kepts[(int) (edge >>> 6)] & (1L << edge)) == 0 && isClosedWall(edge))
+					open(edge);
+				if ((edge & ProgressChannel.CHUNK_MASK) == 0)
+					progress.report(edge);
 			}
+			return draws - kept;
 		}
+	}
 
-		if (this.listener != null && this.listener.isCancelled())
-			return;
+	private boolean isClosedWall(long edge) {
+		int position = (int) (edge >>> 1);
+		if (this.store != null) {
+			int border = 1 << ((edge & 1) == 0 ? Direction.RIGHT : Direction.DOWN).ordinal();
+			return (this.store.borders(position) & border) == 0 && !this.store.isOpen(edge);
+		}
+		if ((edge & 1) == 0)
+			return (position + 1) % this.width != 0 && !this.points[position].right;
+		return position < this.size - this.width && !this.points[position].down;
+	}
 
-		forceUpdate(1);
+	private void open(long edge) {
+		if (this.store != null) {
+			this.store.open(edge);
+		} else {
+			int position = (int) (edge >>> 1);
+			if ((edge & 1) == 0)
+				this.points[position].right = true;
+			else
+				this.points[position].down = true;
+		}
 	}
 
-	private void update(double progress) {
-		if (progress - this.lastUpdate > 0.002)
-			forceUpdate(progress);
+	private boolean tryConnect(int position) {
+		return this.store != null ? this.store.tryConnect(position) : this.points[position].tryConnect();
 	}
 
-	private void forceUpdate(double progress) {
-		this.lastUpdate = progress;
-		if (this.listener != null)
-			this.listener.setProgress(progress);
+	private boolean forceConnect(int position) {
+		return this.store != null ? this.store.forceConnect(position) : this.points[position].forceConnect();
+	}
+
+	public void writeRows(RowSink sink) throws IOException {
+		PhaseTimer timer = PhaseTimer.start(this.metrics, GenerationMetrics.RENDER, this.size, null);
+		try (ProgressChannel progress = ProgressChannel.open(this.listener)) {
+			progress.phase(this.height);
+			long[] right = new long[(this.width + 63) >>> 6], down = new long[right.length];
+			for (int y = 0; y < this.height; y++) {
+				fillRow(y, right, down);
+				sink.accept(y, right, down);
+				progress.report(y + 1);
+			}
+		}
+		timer.stop();
+	}
+
+	private void fillRow(int y, long[] right, long[] down) {
+		Arrays.fill(right, 0);
+		Arrays.fill(down, 0);
+
+		int pos = y * this.width;
+		for (int x = 0; x < this.width; x++) {
+			if (isRightOpen(pos))
+				right[x >>> 6] |= 1L << x;
+			if (isDownOpen(pos))
+				down[x >>> 6] |= 1L << x;
+			pos++;
+		}
+	}
+
+	public void writeImage(Path file, int whitePx, int blackPx) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+			 PngRowSink png = new PngRowSink(channel, this.width, this.height, whitePx, blackPx)) {
+			writeRows(png);
+			PhaseTimer timer = PhaseTimer.start(this.metrics, GenerationMetrics.ENCODE, this.size, null);
+			png.finish();
+			timer.stop();
+		}
+	}
+
+	public void writeSvg(Path file, int whitePx, int blackPx) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			SvgRowSink svg = new SvgRowSink(channel, this.width, this.height, whitePx, blackPx);
+			writeRows(svg);
+			PhaseTimer timer = PhaseTimer.start(this.metrics, GenerationMetrics.ENCODE, this.size, null);
+			svg.finish();
+			timer.stop();
+		}
 	}
 
 	public BufferedImage createImage(int whitePx, int blackPx) {
-		forceUpdate(0);
-
-		int imgWidth = (this.width * whitePx) + ((this.width + 1) * blackPx);
-		int imgHeight = (this.height * whitePx) + ((this.height + 1) * blackPx);
-		BufferedImage img = new BufferedImage(imgWidth, imgHeight, BufferedImage.TYPE_BYTE_BINARY);
-
-		Graphics2D g = img.createGraphics();
-		g.setColor(Color.WHITE);
-
-		int pos = 0;
-		int imgY = blackPx;
-		for (int y = 0; y < this.height; y++) {
-			int imgX = blackPx;
-			for (int x = 0; x < this.width; x++) {
-				Point p = this.points[pos];
-
-				g.fillRect(imgX, imgY, whitePx, whitePx);
-				if (p.right)
-					g.fillRect(imgX + whitePx, imgY, blackPx, whitePx);
-				if (p.down)
-					g.fillRect(imgX, imgY + whitePx, whitePx, blackPx);
-
-				update(++pos / (double) this.size);
-				imgX += whitePx + blackPx;
+		return createImage(whitePx, blackPx, null);
+	}
+
+	// Draws into the given image when it has the right size, see ImageRowSink, or into a new one otherwise.
+	public BufferedImage createImage(int whitePx, int blackPx, BufferedImage image) {
+		ImageRowSink sink = ImageRowSink.fits(image, this.width, this.height, whitePx, blackPx) ? new ImageRowSink(this.width, this.height, whitePx, blackPx, image)
+				: new ImageRowSink(this.width, this.height, whitePx, blackPx);
+		PhaseTimer timer = PhaseTimer.start(this.metrics, GenerationMetrics.RENDER, this.size, null);
+		try (ProgressChannel progress = ProgressChannel.open(this.listener)) {
+			progress.phase(this.height);
+			long[] right = new long[(this.width + 63) >>> 6], down = new long[right.length];
+			for (int y = 0; y < this.height; y++) {
+				fillRow(y, right, down);
+				sink.accept(y, right, down);
+				progress.report(y + 1);
+			}
+		}
+		timer.stop();
+		return sink.getImage();
+	}
+
+	// Draws again a rectangle of an image drawn from this maze, for instance after RegionGenerator carved it again.
+	public BufferedImage createImage(int whitePx, int blackPx, BufferedImage image, int x, int y, int width, int height) {
+		PhaseTimer timer = PhaseTimer.start(this.metrics, GenerationMetrics.RENDER, (long) width * height, null);
+		new ImageRowSink(this.width, this.height, whitePx, blackPx, image).render(this, x, y, width, height);
+		timer.stop();
+		return image;
+	}
+
+	// Draws a path of adjacent cells, as given by MazeSolver, over the maze.
+	public BufferedImage createImage(int whitePx, int blackPx, int[] path, int pathRgb) {
+		if (path == null)
+			throw new IllegalArgumentException("path");
+
+		ImageOverlay overlay = new ImageOverlay(createImage(whitePx, blackPx), whitePx, blackPx, ImageOverlay.palette(pathRgb));
+		int color = ImageOverlay.WHITE + 1;
+		for (int k = 0; k < path.length; k++) {
+			int position = path[k];
+			overlay.fillCell(position % this.width, position / this.width, color);
+			if (k != 0) {
+				int previous = path[k - 1], min = Math.min(position, previous);
+				// Steps along a row, a single column maze only has vertical steps
+				if (position / this.width == previous / this.width)
+					overlay.fillRight(min % this.width, min / this.width, color);
+				else
+					overlay.fillDown(min % this.width, min / this.width, color);
 			}
-			imgY += whitePx + blackPx;
 		}
+		return overlay.getImage();
+	}
+
+	// Colors each reachable cell from blue to red according to its distance, as given by MazeSolver.
+	public BufferedImage createHeatmap(int whitePx, int blackPx, int[] distances) {
+		if (distances == null || distances.length != this.size)
+			throw new IllegalArgumentException("distances");
+
+		int[] colors = new int[254];
+		for (int k = 0; k < colors.length; k++)
+			colors[k] = Color.HSBtoRGB(0.66f * (1 - k / (float) (colors.length - 1)), 1, 1) & 0xFFFFFF;
+
+		int max = 1;
+		for (int d : distances)
+			max = Math.max(max, d);
+
+		ImageOverlay overlay = new ImageOverlay(createImage(whitePx, blackPx), whitePx, blackPx, ImageOverlay.palette(colors));
+		for (int i = 0; i < this.size; i++) {
+			int d = distances[i];
+			if (d < 0)
+				continue;
+
+			int x = i % this.width, y = i / this.width;
+			int color = ImageOverlay.WHITE + 1 + (int) ((long) d * (colors.length - 1) / max);
+			overlay.fillCell(x, y, color);
+			if (isRightOpen(i) && distances[i + 1] >= 0)
+				overlay.fillRight(x, y, color);
+			if (isDownOpen(i) && distances[i + this.width] >= 0)
+				overlay.fillDown(x, y, color);
+		}
+		return overlay.getImage();
+	}
 
-		forceUpdate(1);
+	public BufferedImage createImageParallel(int whitePx, int blackPx) {
+		return createImageParallel(whitePx, blackPx, ForkJoinPool.commonPool());
+	}
 
-		return img;
+	public BufferedImage createImageParallel(int whitePx, int blackPx, ForkJoinPool pool) {
+		ImageRowSink sink = new ImageRowSink(this.width, this.height, whitePx, blackPx);
+		// Bands write disjoint ranges of the raster
+		int bands = Math.min(this.height, pool.getParallelism() * 4);
+		try (ProgressChannel progress = ProgressChannel.open(this.listener)) {
+			progress.phase(this.height);
+			ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[bands];
+			for (int b = 0; b < bands; b++) {
+				int start = (int) ((long) b * this.height / bands), end = (int) ((long) (b + 1) * this.height / bands);
+				tasks[b] = pool.submit(() -> {
+					long[] right = new long[(this.width + 63) >>> 6], down = new long[right.length];
+					for (int y = start; y < end; y++) {
+						fillRow(y, right, down);
+						sink.accept(y, right, down);
+						progress.add(1);
+					}
+				});
+			}
+			ParallelTasks.join(tasks);
+		}
+		return sink.getImage();
 	}
 
 	public class Point extends Group {
@@ -173,10 +519,16 @@ public class Maze {
 		private byte index;
 
 		public Point(int position) {
+			super(Maze.this.groups, position);
 			this.position = position;
 		}
 
-		public void shuffleCombinations(Random random) {
+		@Override
+		protected Point group(int index) {
+			return Maze.this.points[index];
+		}
+
+		public void shuffleCombinations(RandomGenerator random) {
 			this.directions = Direction.randomCombination(random);
 			resetIndex();
 		}
@@ -185,6 +537,13 @@ public class Maze {
 			this.index = -1;
 		}
 
+		private void clear() {
+			this.right = false;
+			this.down = false;
+			this.directions = null;
+			this.index = 0;
+		}
+
 		public boolean tryConnect() {
 			while (this.index < 3) {
 				this.index++;
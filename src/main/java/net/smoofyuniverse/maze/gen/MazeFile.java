@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// A memory-mapped maze file: a 32 bytes header followed by a bitmap of 2 bits per cell, see BitmapRowSink.
+public class MazeFile implements WallGrid {
+	public static final int VERSION = 1, HEADER_SIZE = 32;
+	private static final byte[] MAGIC = {'M', 'A', 'Z', 'E'};
+	private static final int SEGMENT_SHIFT = 30, SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+	public final Path file;
+	public final int width, height;
+	public final long size, seed;
+	public final double errorFactor;
+	public final Algorithm algorithm;
+
+	private final MappedByteBuffer[] segments;
+
+	private MazeFile(Path file, FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		while (header.hasRemaining()) {
+			if (channel.read(header) < 0)
+				throw new IOException("Truncated maze file header");
+		}
+		header.flip();
+
+		byte[] magic = new byte[4];
+		header.get(magic);
+		if (!Arrays.equals(magic, MAGIC))
+			throw new IOException("Not a maze file");
+		int version = header.get();
+		if (version != VERSION)
+			throw new IOException("Unsupported maze file version: " + version);
+
+		this.file = file;
+		this.algorithm = Algorithm.byId(header.get());
+		header.getShort(); // reserved
+		this.width = header.getInt();
+		this.height = header.getInt();
+		this.seed = header.getLong();
+		this.errorFactor = header.getDouble();
+
+		if (this.width <= 0 || this.height <= 0)
+			throw new IOException("Invalid maze dimensions: " + this.width + "x" + this.height);
+		this.size = (long) this.width * this.height;
+
+		long length = bitmapLength(this.size);
+		if (channel.size() < HEADER_SIZE + length)
+			throw new IOException("Truncated maze file bitmap");
+
+		this.segments = new MappedByteBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+		for (int i = 0; i < this.segments.length; i++) {
+			long offset = (long) i << SEGMENT_SHIFT;
+			this.segments[i] = channel.map(MapMode.READ_ONLY, HEADER_SIZE + offset, Math.min(length - offset, 1L << SEGMENT_SHIFT));
+		}
+	}
+
+	public static MazeFile open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return new MazeFile(file, channel);
+		}
+	}
+
+	public static long bitmapLength(long cells) {
+		return (cells + 3) >>> 2;
+	}
+
+	public static void write(Path file, Maze maze, long seed, double errorFactor, Algorithm algorithm) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			if (maze.isCompact()) {
+				MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE + bitmapLength(maze.size));
+				buffer.put(header(maze.width, maze.height, seed, errorFactor, algorithm));
+				maze.store.exportWalls(buffer);
+				buffer.force();
+			} else {
+				BitmapRowSink sink = createSink(channel, maze.width, maze.height, seed, errorFactor, algorithm);
+				maze.writeRows(sink);
+				sink.finish();
+			}
+		}
+	}
+
+	// Writes the header to the channel and returns the sink to which rows must be written, see StreamingMaze.
+	public static BitmapRowSink createSink(WritableByteChannel channel, int width, int height, long seed, double errorFactor, Algorithm algorithm) throws IOException {
+		ByteBuffer header = header(width, height, seed, errorFactor, algorithm);
+		while (header.hasRemaining())
+			channel.write(header);
+		return new BitmapRowSink(channel, width);
+	}
+
+	private static ByteBuffer header(int width, int height, long seed, double errorFactor, Algorithm algorithm) {
+		if (width <= 0)
+			throw new IllegalArgumentException("width");
+		if (height <= 0)
+			throw new IllegalArgumentException("height");
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.put(MAGIC);
+		header.put((byte) VERSION);
+		header.put((byte) algorithm.id);
+		header.putShort((short) 0);
+		header.putInt(width);
+		header.putInt(height);
+		header.putLong(seed);
+		header.putDouble(errorFactor);
+		header.flip();
+		return header;
+	}
+
+	private int cell(long cell) {
+		long index = cell >>> 2;
+		byte b = this.segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+		return (b >>> ((cell & 3) << 1)) & 3;
+	}
+
+	public boolean isRightOpen(long cell) {
+		return (cell(cell) & 1) != 0;
+	}
+
+	public boolean isDownOpen(long cell) {
+		return (cell(cell) & 2) != 0;
+	}
+
+	@Override
+	public boolean isRightOpen(int x, int y) {
+		return isRightOpen((long) y * this.width + x);
+	}
+
+	@Override
+	public boolean isDownOpen(int x, int y) {
+		return isDownOpen((long) y * this.width + x);
+	}
+
+	@Override
+	public int getWidth() {
+		return this.width;
+	}
+
+	@Override
+	public int getHeight() {
+		return this.height;
+	}
+
+	@Override
+	public boolean isRightOpen(int position) {
+		return isRightOpen((long) position);
+	}
+
+	@Override
+	public boolean isDownOpen(int position) {
+		return isDownOpen((long) position);
+	}
+
+	public void writeRows(RowSink sink) throws IOException {
+		long[] right = new long[(this.width + 63) >>> 6], down = new long[right.length];
+		long cell = 0;
+		for (int y = 0; y < this.height; y++) {
+			Arrays.fill(right, 0);
+			Arrays.fill(down, 0);
+			for (int x = 0; x < this.width; x++) {
+				int c = cell(cell++);
+				right[x >>> 6] |= (long) (c & 1) << x;
+				down[x >>> 6] |= (long) (c >>> 1) << x;
+			}
+			sink.accept(y, right, down);
+		}
+	}
+
+	public Maze toMaze() {
+		if (this.size > Integer.MAX_VALUE)
+			throw new IllegalStateException("Maze is too large to be loaded in memory");
+
+		Maze maze = new Maze(this.width, this.height, true);
+		maze.store.importWalls(this.segments[0].duplicate());
+		return maze;
+	}
+
+	// Loads the passages only, see MazeStore(int, int, boolean).
+	public MazeStore toStore() {
+		if (this.size > Integer.MAX_VALUE)
+			throw new IllegalStateException("Maze is too large to be loaded in memory");
+
+		MazeStore store = new MazeStore(this.width, this.height, false);
+		store.importWalls(this.segments[0].duplicate());
+		return store;
+	}
+}
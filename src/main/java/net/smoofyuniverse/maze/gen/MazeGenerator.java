@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.smoofyuniverse.maze.gen;
+
+import net.smoofyuniverse.common.task.ProgressListener;
+
+import java.util.random.RandomGenerator;
+
+// Carves a perfect maze in an empty store.
+public interface MazeGenerator {
+
+	Algorithm getAlgorithm();
+
+	// Store suitable for this generator
+	default MazeStore createStore(int width, int height) {
+		return new MazeStore(width, height, false);
+	}
+
+	// Bytes used by the store and the generator to carve a maze of the given size
+	long memoryUsage(int width, int height);
+
+	void generate(MazeStore store, RandomGenerator random, ProgressListener listener);
+
+	// Speed of the last generation
+	double getCellsPerSecond();
+
+	static MazeGenerator of(Algorithm algorithm) {
+		switch (algorithm) {
+			case KRUSKAL:
+				return new KruskalGenerator();
+			case BACKTRACKER:
+				return new BacktrackerGenerator();
+			case PRIM:
+				return new PrimGenerator();
+			case WILSON:
+				return new WilsonGenerator();
+			case BINARY_TREE:
+				return new BinaryTreeGenerator();
+			case SIDEWINDER:
+				return new SidewinderGenerator();
+			default:
+				throw new IllegalArgumentException("algorithm");
+		}
+	}
+}
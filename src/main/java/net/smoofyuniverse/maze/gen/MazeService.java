@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import net.smoofyuniverse.maze.gen.GenerationPlan.Engine;
+import net.smoofyuniverse.maze.gen.GenerationPlan.Format;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Generates mazes for concurrent callers.
+// Small mazes are queued and generated in batches, each batch reusing a few MazeWorker.
+// Large mazes get their own task. Every task first reserves its estimated heap from the budget of the service,
+// from which the workers kept by the batches are reserved once and for all.
+// Tasks run on virtual threads when the runtime has them, on platform threads otherwise.
+public class MazeService implements AutoCloseable {
+	// Mazes whose worker and output need more heap are isolated
+	public static final long SMALL_BYTES = 3 * 1024 * 1024;
+	// Requests handled by a batch before it gives its thread back
+	private static final int BATCH = 32;
+	// Sizes of small mazes kept by each set of workers
+	private static final int WORKERS = 4;
+	private static final long MB = 1024 * 1024;
+
+	public final int parallelism, batchParallelism;
+	public final long heapBudget;
+
+	private final ExecutorService batches, isolated;
+	private final boolean virtualThreads;
+	private final Queue<Task> pending = new ConcurrentLinkedQueue<>();
+	private final Queue<Workers> idleWorkers = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger activeBatches = new AtomicInteger();
+	private final Semaphore heap;
+	private final int heapPermits;
+	private volatile boolean closed;
+
+	public MazeService() {
+		this(Runtime.getRuntime().availableProcessors(), GenerationPlan.defaultHeapBudget());
+	}
+
+	public MazeService(int parallelism, long heapBudget) {
+		if (parallelism <= 0)
+			throw new IllegalArgumentException("parallelism");
+		if (heapBudget < MB)
+			throw new IllegalArgumentException("heapBudget");
+
+		this.parallelism = parallelism;
+		this.heapBudget = heapBudget;
+		// At most half of the budget is kept by the workers, at least one batch runs
+		int permits = (int) Math.min(Integer.MAX_VALUE, heapBudget / MB);
+		int workersPermits = (int) (WORKERS * SMALL_BYTES / MB);
+		this.batchParallelism = Math.max(1, Math.min(parallelism, permits / 2 / workersPermits));
+		this.heapPermits = permits - Math.min(permits / 2, this.batchParallelism * workersPermits);
+		this.heap = new Semaphore(this.heapPermits, true);
+
+		ExecutorService virtual = newVirtualExecutor();
+		this.virtualThreads = virtual != null;
+		if (virtual != null) {
+			this.batches = virtual;
+			this.isolated = virtual;
+		} else {
+			this.batches = newPlatformExecutor("Maze service batch", parallelism);
+			this.isolated = newPlatformExecutor("Maze service task", parallelism);
+		}
+	}
+
+	// Available since Java 21
+	private static ExecutorService newVirtualExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	private static ExecutorService newPlatformExecutor(String name, int threads) {
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, name + " #" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	public boolean usesVirtualThreads() {
+		return this.virtualThreads;
+	}
+
+	// Same passages as GenerationPlan for the same seed.
+	public CompletableFuture<MazeStore> walls(int width, int height, long seed, double errorFactor) {
+		GenerationPlan plan = plan(width, height, 1, 0, errorFactor, Format.BINARY);
+		long copyBytes = MazeStore.memoryUsage(plan.size, false);
+		if (workerBytes(plan) + copyBytes <= SMALL_BYTES) {
+			return batch(copyBytes, workers -> {
+				MazeWorker worker = workers.get(width, height, 1, 0);
+				worker.regenerate(seed, errorFactor);
+				return worker.maze.store.copyPassages();
+			});
+		}
+
+		return isolate(plan.heapBytes + copyBytes, () -> {
+			Maze maze = new Maze(width, height, true);
+			maze.fill();
+			TiledGenerator.of(maze).generate(seed, errorFactor, null);
+			return maze.store.copyPassages();
+		});
+	}
+
+	public CompletableFuture<byte[]> png(int width, int height, int whitePx, int blackPx, long seed, double errorFactor) {
+		GenerationPlan plan = plan(width, height, whitePx, blackPx, errorFactor, Format.PNG);
+		// The output stream grows by doubling then is copied
+		if (plan.outputBytes > Integer.MAX_VALUE / 4)
+			throw new IllegalArgumentException("The image would not fit in a byte array");
+		if (workerBytes(plan) + 3 * plan.outputBytes <= SMALL_BYTES) {
+			return batch(3 * plan.outputBytes, workers -> {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				try {
+					workers.get(width, height, whitePx, blackPx).writePng(seed, errorFactor, out);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				return out.toByteArray();
+			});
+		}
+
+		return isolate(plan.heapBytes + 3 * plan.outputBytes, () -> {
+			Maze maze = new Maze(width, height, true);
+			maze.fill();
+			TiledGenerator.of(maze).generate(seed, errorFactor, null);
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream((int) plan.outputBytes);
+			try (PngRowSink png = new PngRowSink(Channels.newChannel(out), width, height, whitePx, blackPx)) {
+				maze.writeRows(png);
+				png.finish();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return out.toByteArray();
+		});
+	}
+
+	private GenerationPlan plan(int width, int height, int whitePx, int blackPx, double errorFactor, Format format) {
+		GenerationPlan plan = GenerationPlan.of(width, height, whitePx, blackPx, errorFactor, format, this.heapBudget, 1);
+		if (plan.engine != Engine.IN_MEMORY)
+			throw new IllegalArgumentException("The maze does not fit in the heap budget of the service");
+		return plan;
+	}
+
+	// Kept by a MazeWorker between requests: the maze, its image and the encoder
+	private static long workerBytes(GenerationPlan plan) {
+		long image = plan.format == Format.PNG ? ((plan.imageWidth + 7) >>> 3) * plan.imageHeight : 0;
+		return plan.heapBytes + image;
+	}
+
+	private int permits(long heapBytes) {
+		// Estimates above the budget still run, alone
+		return (int) Math.min(this.heapPermits, heapBytes / MB + 1);
+	}
+
+	// The task reserves the heap it needs besides its worker.
+	private <T> CompletableFuture<T> batch(long heapBytes, Function<Workers, T> function) {
+		BatchTask<T> task = new BatchTask<>(this.heap, permits(heapBytes), function);
+		if (this.closed) {
+			task.fail(new RejectedExecutionException("Service closed"));
+			return task.future;
+		}
+		this.pending.add(task);
+		schedule();
+		return task.future;
+	}
+
+	// Starts a batch if there are pending requests and fewer batches than the batch parallelism.
+	private void schedule() {
+		while (!this.pending.isEmpty()) {
+			int active = this.activeBatches.get();
+			if (active >= this.batchParallelism)
+				return;
+			if (this.activeBatches.compareAndSet(active, active + 1)) {
+				try {
+					this.batches.execute(this::runBatch);
+				} catch (RejectedExecutionException e) {
+					this.activeBatches.decrementAndGet();
+					failPending(e);
+				}
+				return;
+			}
+		}
+	}
+
+	private void runBatch() {
+		Workers workers = this.idleWorkers.poll();
+		if (workers == null)
+			workers = new Workers();
+		try {
+			for (int i = 0; i < BATCH; i++) {
+				Task task = this.pending.poll();
+				if (task == null)
+					break;
+				task.run(workers);
+			}
+		} finally {
+			this.idleWorkers.add(workers);
+			this.activeBatches.decrementAndGet();
+			// close() may have drained the idle workers while this batch was running
+			if (this.closed)
+				closeIdleWorkers();
+		}
+		// Remaining requests go to a new batch, so that long queues do not hold a thread
+		schedule();
+	}
+
+	private <T> CompletableFuture<T> isolate(long heapBytes, Callable<T> callable) {
+		int permits = permits(heapBytes);
+		CompletableFuture<T> future = new CompletableFuture<>();
+		if (this.closed) {
+			future.completeExceptionally(new RejectedExecutionException("Service closed"));
+			return future;
+		}
+		try {
+			this.isolated.execute(() -> {
+				if (future.isDone())
+					return;
+				this.heap.acquireUninterruptibly(permits);
+				try {
+					if (!future.isDone())
+						future.complete(callable.call());
+				} catch (Throwable t) {
+					future.completeExceptionally(t);
+				} finally {
+					this.heap.release(permits);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	private void failPending(Throwable cause) {
+		Task task;
+		while ((task = this.pending.poll()) != null)
+			task.fail(cause);
+	}
+
+	@Override
+	public void close() {
+		this.closed = true;
+		this.batches.shutdown();
+		this.isolated.shutdown();
+		failPending(new RejectedExecutionException("Service closed"));
+		closeIdleWorkers();
+	}
+
+	private void closeIdleWorkers() {
+		Workers workers;
+		while ((workers = this.idleWorkers.poll()) != null)
+			workers.close();
+	}
+
+	private interface Task {
+		void run(Workers workers);
+
+		void fail(Throwable cause);
+	}
+
+	private static final class BatchTask<T> implements Task {
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		final Semaphore heap;
+		final int permits;
+		final Function<Workers, T> function;
+
+		BatchTask(Semaphore heap, int permits, Function<Workers, T> function) {
+			this.heap = heap;
+			this.permits = permits;
+			this.function = function;
+		}
+
+		@Override
+		public void run(Workers workers) {
+			if (this.future.isDone())
+				return; // Cancelled
+			this.heap.acquireUninterruptibly(this.permits);
+			try {
+				if (!this.future.isDone())
+					this.future.complete(this.function.apply(workers));
+			} catch (Throwable t) {
+				this.future.completeExceptionally(t);
+			} finally {
+				this.heap.release(this.permits);
+			}
+		}
+
+		@Override
+		public void fail(Throwable cause) {
+			this.future.completeExceptionally(cause);
+		}
+	}
+
+	// The workers of the last few sizes, replaced in turn.
+	private static final class Workers {
+		private final MazeWorker[] workers = new MazeWorker[WORKERS];
+		private int next;
+
+		MazeWorker get(int width, int height, int whitePx, int blackPx) {
+			for (MazeWorker w : this.workers) {
+				if (w != null && w.maze.width == width && w.maze.height == height && w.whitePx == whitePx && w.blackPx == blackPx)
+					return w;
+			}
+
+			if (this.workers[this.next] != null)
+				this.workers[this.next].close();
+			MazeWorker w = new MazeWorker(width, height, whitePx, blackPx);
+			this.workers[this.next] = w;
+			this.next = (this.next + 1) % WORKERS;
+			return w;
+		}
+
+		void close() {
+			for (MazeWorker w : this.workers) {
+				if (w != null)
+					w.close();
+			}
+		}
+	}
+}
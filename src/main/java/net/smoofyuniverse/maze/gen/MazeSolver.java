@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.smoofyuniverse.maze.gen;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Breadth-first searches over the passages of a maze. Distances are in cells, -1 for unreachable cells.
+public class MazeSolver {
+	private static final VarHandle DISTANCES = MethodHandles.arrayElementVarHandle(int[].class);
+	// Smaller frontiers are expanded on the calling thread
+	private static final int PARALLEL_THRESHOLD = 1 << 13, CHUNK = 1 << 11;
+
+	public final WallGrid grid;
+	public final int width, height, size;
+
+	public MazeSolver(WallGrid grid) {
+		if ((long) grid.getWidth() * grid.getHeight() > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("grid");
+
+		this.grid = grid;
+		this.width = grid.getWidth();
+		this.height = grid.getHeight();
+		this.size = this.width * this.height;
+	}
+
+	public int[] distances(int source) {
+		return distances(source, -1);
+	}
+
+	// Stops as soon as the target is reached, distances of the remaining cells are then incomplete.
+	private int[] distances(int source, int target) {
+		checkPosition(source);
+
+		int[] distances = new int[this.size], queue = new int[this.size];
+		Arrays.fill(distances, -1);
+		distances[source] = 0;
+		queue[0] = source;
+
+		int head = 0, tail = 1;
+		while (head < tail) {
+			int cell = queue[head++];
+			if (cell == target)
+				break;
+			tail = expand(cell, distances[cell] + 1, distances, queue, tail);
+		}
+		return distances;
+	}
+
+	public int[] distancesParallel(int source) {
+		return distancesParallel(source, ForkJoinPool.commonPool());
+	}
+
+	// Level-synchronous search: each level of a large frontier is split between the threads of the pool.
+	// Perfect mazes have narrow frontiers and mostly run on the calling thread, mazes with loops benefit the most.
+	public int[] distancesParallel(int source, ForkJoinPool pool) {
+		checkPosition(source);
+
+		int[] distances = new int[this.size];
+		Arrays.fill(distances, -1);
+		distances[source] = 0;
+
+		int[] frontier = new int[Math.min(this.size, CHUNK)], next = new int[frontier.length];
+		frontier[0] = source;
+		int count = 1, level = 0;
+
+		while (count != 0) {
+			int distance = ++level;
+			if (next.length < Math.min(this.size, 4L * count))
+				next = new int[(int) Math.min(this.size, 4L * count)];
+
+			if (count < PARALLEL_THRESHOLD) {
+				int nextCount = 0;
+				for (int i = 0; i < count; i++)
+					nextCount = expand(frontier[i], distance, distances, next, nextCount);
+				count = nextCount;
+			} else {
+				int[] current = frontier, target = next;
+				AtomicInteger nextCount = new AtomicInteger();
+				ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[(count + CHUNK - 1) / CHUNK];
+				for (int t = 0; t < tasks.length; t++) {
+					int start = t * CHUNK, end = Math.min(count, start + CHUNK);
+					tasks[t] = pool.submit(() -> {
+						int[] found = new int[4 * (end - start)];
+						int n = 0;
+						for (int i = start; i < end; i++)
+							n = expandAtomically(current[i], distance, distances, found, n);
+						System.arraycopy(found, 0, target, nextCount.getAndAdd(n), n);
+					});
+				}
+				ParallelTasks.join(tasks);
+				count = nextCount.get();
+			}
+
+			int[] swap = frontier;
+			frontier = next;
+			next = swap;
+		}
+		return distances;
+	}
+
+	// Cells from start to end, both included, null when end cannot be reached.
+	public int[] shortestPath(int start, int end) {
+		checkPosition(end);
+		return walkDown(distances(end, start), start);
+	}
+
+	// Longest shortest path, found with two searches. Exact for perfect mazes, a lower bound otherwise.
+	public int[] longestPath() {
+		int a = farthest(distances(0));
+		int[] distances = distances(a);
+		return walkDown(distances, farthest(distances));
+	}
+
+	public int countDeadEnds() {
+		int count = 0;
+		for (int i = 0; i < this.size; i++) {
+			if (degree(i) == 1)
+				count++;
+		}
+		return count;
+	}
+
+	public int degree(int position) {
+		int degree = 0;
+		if (this.grid.isRightOpen(position))
+			degree++;
+		if (this.grid.isDownOpen(position))
+			degree++;
+		if (position % this.width != 0 && this.grid.isRightOpen(position - 1))
+			degree++;
+		if (position >= this.width && this.grid.isDownOpen(position - this.width))
+			degree++;
+		return degree;
+	}
+
+	private static int farthest(int[] distances) {
+		int best = 0;
+		for (int i = 1; i < distances.length; i++) {
+			if (distances[i] > distances[best])
+				best = i;
+		}
+		return best;
+	}
+
+	// Follows decreasing distances from the given cell down to the source of the search
+	private int[] walkDown(int[] distances, int cell) {
+		int distance = distances[cell];
+		if (distance < 0)
+			return null;
+
+		int[] path = new int[distance + 1];
+		path[0] = cell;
+		for (int k = 1; k <= distance; k++) {
+			int d = distance - k;
+			if (this.grid.isRightOpen(cell) && distances[cell + 1] == d)
+				cell++;
+			else if (this.grid.isDownOpen(cell) && distances[cell + this.width] == d)
+				cell += this.width;
+			else if (cell % this.width != 0 && this.grid.isRightOpen(cell - 1) && distances[cell - 1] == d)
+				cell--;
+			else
+				cell -= this.width;
+			path[k] = cell;
+		}
+		return path;
+	}
+
+	private int expand(int cell, int distance, int[] distances, int[] queue, int tail) {
+		int next;
+		if (this.grid.isRightOpen(cell) && distances[next = cell + 1] < 0) {
+			distances[next] = distance;
+			queue[tail++] = next;
+		}
+		if (this.grid.isDownOpen(cell) && distances[next = cell + this.width] < 0) {
+			distances[next] = distance;
+			queue[tail++] = next;
+		}
+		if (cell % this.width != 0 && this.grid.isRightOpen(next = cell - 1) && distances[next] < 0) {
+			distances[next] = distance;
+			queue[tail++] = next;
+		}
+		if (cell >= this.width && this.grid.isDownOpen(next = cell - this.width) && distances[next] < 0) {
+			distances[next] = distance;
+			queue[tail++] = next;
+		}
+		return tail;
+	}
+
+	private int expandAtomically(int cell, int distance, int[] distances, int[] found, int count) {
+		int next;
+		if (this.grid.isRightOpen(cell) && claim(distances, next = cell + 1, distance))
+			found[count++] = next;
+		if (this.grid.isDownOpen(cell) && claim(distances, next = cell + this.width, distance))
+			found[count++] = next;
+		if (cell % this.width != 0 && this.grid.isRightOpen(next = cell - 1) && claim(distances, next, distance))
+			found[count++] = next;
+		if (cell >= this.width && this.grid.isDownOpen(next = cell - this.width) && claim(distances, next, distance))
+			found[count++] = next;
+		return count;
+	}
+
+	private static boolean claim(int[] distances, int cell, int distance) {
+		return distances[cell] < 0 && DISTANCES.compareAndSet(distances, cell, -1, distance);
+	}
+
+	private void checkPosition(int position) {
+		if (position < 0 || position >= this.size)
+			throw new IllegalArgumentException("position");
+	}
+}
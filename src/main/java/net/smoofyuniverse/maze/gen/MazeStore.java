@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+public class MazeStore {
+	private static final int COMBINATION_MASK = 0x1F, INDEX_SHIFT = 5;
+	private static final VarHandle WALLS = MethodHandles.arrayElementVarHandle(long[].class);
+
+	public final int width, height, size;
+
+	// Null when the store only holds the passages
+	public final DisjointSet groups;
+	// bit 2i: right passage of cell i, bit 2i+1: down passage of cell i
+	private final long[] walls;
+	// bits 0-4: combination index, bits 5-7: number of directions already tried
+	private final byte[] cells;
+	// i / width == (i * rowMultiplier) >>> rowShift for any int i >= 0
+	private final long rowMultiplier;
+	private final int rowShift;
+	// Indexed by direction ordinal: offset to the neighbour and to the id of the wall in between
+	private final int[] neighbourOffsets;
+	private final long[] edgeOffsets;
+
+	private boolean dirty;
+
+	public MazeStore(int width, int height) {
+		this(width, height, true);
+	}
+
+	// Without groups, only the passage methods can be used.
+	public MazeStore(int width, int height, boolean groups) {
+		if (width <= 0)
+			throw new IllegalArgumentException("width");
+		if (height <= 0)
+			throw new IllegalArgumentException("height");
+
+		this.width = width;
+		this.height = height;
+		this.size = width * height;
+
+		this.groups = groups ? new DisjointSet(this.size) : null;
+		this.walls = new long[(this.size + 31) >>> 5];
+		this.cells = groups ? new byte[this.size] : null;
+
+		// Division by an invariant integer, exact for 31 bits dividends
+		this.rowShift = 31 + 32 - Integer.numberOfLeadingZeros(width - 1);
+		this.rowMultiplier = ((1L << this.rowShift) + width - 1) / width;
+		this.neighbourOffsets = new int[]{-width, width, -1, 1};
+		this.edgeOffsets = new long[]{1 - 2L * width, 1, -2, 0};
+	}
+
+	public boolean hasGroups() {
+		return this.groups != null;
+	}
+
+	// Copy of the passages only, without groups.
+	public MazeStore copyPassages() {
+		MazeStore copy = new MazeStore(this.width, this.height, false);
+		System.arraycopy(this.walls, 0, copy.walls, 0, this.walls.length);
+		copy.dirty = this.dirty;
+		return copy;
+	}
+
+	public void clear() {
+		if (!this.dirty)
+			return;
+
+		Arrays.fill(this.walls, 0);
+		if (this.groups != null) {
+			this.groups.clear();
+			Arrays.fill(this.cells, (byte) 0);
+		}
+		this.dirty = false;
+	}
+
+	public long memoryUsage() {
+		return memoryUsage(this.size, this.groups != null);
+	}
+
+	public static long memoryUsage(long size, boolean groups) {
+		long walls = 8 * ((size + 31) >>> 5);
+		return groups ? walls + 5 * size : walls;
+	}
+
+	public boolean union(int a, int b) {
+		if (!this.groups.union(a, b))
+			return false;
+
+		this.dirty = true;
+		return true;
+	}
+
+	public boolean isRightOpen(int i) {
+		return (this.walls[i >>> 5] & (1L << (i << 1))) != 0;
+	}
+
+	public boolean isDownOpen(int i) {
+		return (this.walls[i >>> 5] & (2L << (i << 1))) != 0;
+	}
+
+	public void openRight(int i) {
+		this.walls[i >>> 5] |= 1L << (i << 1);
+		this.dirty = true;
+	}
+
+	public void openDown(int i) {
+		this.walls[i >>> 5] |= 2L << (i << 1);
+		this.dirty = true;
+	}
+
+	public int row(int i) {
+		return (int) ((i * this.rowMultiplier) >>> this.rowShift);
+	}
+
+	public int column(int i) {
+		return i - row(i) * this.width;
+	}
+
+	// Directions leading out of the maze from cell i, as a mask of 1 << ordinal
+	public int borders(int i) {
+		int x = column(i);
+		return (i - this.width) >>> 31
+				| ((this.size - this.width - 1 - i) >>> 31) << 1
+				| ((x - 1) >>> 31) << 2
+				| ((this.width - 2 - x) >>> 31) << 3;
+	}
+
+	// Neighbour of cell i in the given direction, -1 outside of the maze
+	public int neighbour(int i, int direction) {
+		return (borders(i) & (1 << direction)) != 0 ? -1 : i + this.neighbourOffsets[direction];
+	}
+
+	// Walls are identified by edge ids, which are their bit index: 2i for the right wall of cell i, 2i + 1 for the down wall
+	public long edge(int i, int direction) {
+		return 2L * i + this.edgeOffsets[direction];
+	}
+
+	public boolean isOpen(long edge) {
+		return (this.walls[(int) (edge >>> 6)] & (1L << edge)) != 0;
+	}
+
+	public void open(long edge) {
+		this.walls[(int) (edge >>> 6)] |= 1L << edge;
+		this.dirty = true;
+	}
+
+	public void close(long edge) {
+		this.walls[(int) (edge >>> 6)] &= ~(1L << edge);
+	}
+
+	// Concurrent updates do not mark the store as dirty, their generator calls markDirty() once before.
+	void openAtomically(long edge) {
+		WALLS.getAndBitwiseOr(this.walls, (int) (edge >>> 6), 1L << edge);
+	}
+
+	void markDirty() {
+		this.dirty = true;
+	}
+
+	// Transfers the passages as a little-endian bitmap of (size + 3) / 4 bytes, see BitmapRowSink.
+	public void exportWalls(ByteBuffer buffer) {
+		int length = (this.size + 3) >>> 2, longs = length >>> 3;
+		buffer.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().put(this.walls, 0, longs);
+		buffer.position(buffer.position() + (longs << 3));
+
+		long last = longs < this.walls.length ? this.walls[longs] : 0;
+		for (int i = longs << 3; i < length; i++) {
+			buffer.put((byte) last);
+			last >>>= 8;
+		}
+	}
+
+	public void importWalls(ByteBuffer buffer) {
+		int length = (this.size + 3) >>> 2, longs = length >>> 3;
+		buffer.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(this.walls, 0, longs);
+		buffer.position(buffer.position() + (longs << 3));
+
+		long last = 0;
+		for (int i = longs << 3, shift = 0; i < length; i++, shift += 8)
+			last |= (buffer.get() & 0xFFL) << shift;
+		if (longs < this.walls.length)
+			this.walls[longs] = last;
+		this.dirty = true;
+	}
+
+	public int getCombination(int i) {
+		return this.cells[i] & COMBINATION_MASK;
+	}
+
+	public void shuffleCombination(int i, RandomGenerator random) {
+		shuffleCombinationWithin(i, random);
+		this.dirty = true;
+	}
+
+	void shuffleCombinationWithin(int i, RandomGenerator random) {
+		this.cells[i] = (byte) Direction.randomCombinationIndex(random);
+	}
+
+	public void resetIndex(int i) {
+		this.cells[i] &= COMBINATION_MASK;
+	}
+
+	public boolean tryConnect(int i) {
+		if (!tryConnectMasked(i, 0))
+			return false;
+
+		this.dirty = true;
+		return true;
+	}
+
+	public boolean tryConnect(int i, Direction d) {
+		int direction = d.ordinal();
+		if ((borders(i) & (1 << direction)) != 0 || !union(i, i + this.neighbourOffsets[direction]))
+			return false;
+
+		open(edge(i, direction));
+		return true;
+	}
+
+	public boolean forceConnect(int i) {
+		if (!forceConnectMasked(i, 0))
+			return false;
+
+		this.dirty = true;
+		return true;
+	}
+
+	public boolean forceConnect(int i, Direction d) {
+		int direction = d.ordinal();
+		if ((borders(i) & (1 << direction)) != 0)
+			return false;
+
+		long edge = edge(i, direction);
+		if (isOpen(edge))
+			return false;
+
+		open(edge);
+		return true;
+	}
+
+	// Used by concurrent generators working on disjoint areas, see openAtomically.
+	// A direction is skipped when its ordinal bit is set in blocked, passages are opened atomically.
+	boolean tryConnectWithin(int i, int blocked) {
+		return tryConnectMasked(i, blocked | Integer.MIN_VALUE);
+	}
+
+	// The sign bit of blocked selects atomic updates of the walls, the caller marks the store as dirty
+	private boolean tryConnectMasked(int i, int blocked) {
+		int cell = this.cells[i] & 0xFF;
+		int index = cell >>> INDEX_SHIFT;
+		if (index == 4)
+			return false;
+
+		int directions = Direction.packedCombination(cell & COMBINATION_MASK);
+		blocked |= borders(i);
+		while (index < 4) {
+			int direction = directions >>> (index++ << 1) & 3;
+			if ((blocked & (1 << direction)) == 0 && this.groups.union(i, i + this.neighbourOffsets[direction])) {
+				long edge = edge(i, direction);
+				if (blocked < 0)
+					openAtomically(edge);
+				else
+					this.walls[(int) (edge >>> 6)] |= 1L << edge;
+				this.cells[i] = (byte) ((cell & COMBINATION_MASK) | (index << INDEX_SHIFT));
+				return true;
+			}
+		}
+		this.cells[i] = (byte) ((cell & COMBINATION_MASK) | (index << INDEX_SHIFT));
+		return false;
+	}
+
+	private boolean forceConnectMasked(int i, int blocked) {
+		int cell = this.cells[i] & 0xFF;
+		int index = cell >>> INDEX_SHIFT;
+		if (index == 4)
+			return false;
+
+		int directions = Direction.packedCombination(cell & COMBINATION_MASK);
+		blocked |= borders(i);
+		while (index < 4) {
+			int direction = directions >>> (index++ << 1) & 3;
+			if ((blocked & (1 << direction)) == 0) {
+				long edge = edge(i, direction);
+				if (!isOpen(edge)) {
+					if (blocked < 0)
+						openAtomically(edge);
+					else
+						this.walls[(int) (edge >>> 6)] |= 1L << edge;
+					this.cells[i] = (byte) ((cell & COMBINATION_MASK) | (index << INDEX_SHIFT));
+					return true;
+				}
+			}
+		}
+		this.cells[i] = (byte) ((cell & COMBINATION_MASK) | (index << INDEX_SHIFT));
+		return false;
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Generates and renders mazes of a single size again and again, reusing the maze, the image and the encoder.
+// Apart from a few small objects, nothing is allocated once the first maze has been produced. Not thread-safe: keep one per thread.
+public class MazeWorker implements AutoCloseable {
+	public final Maze maze;
+	public final int whitePx, blackPx;
+
+	private final TiledGenerator generator;
+	private final PngEncoder encoder = new PngEncoder();
+	private BufferedImage image;
+
+	public MazeWorker(int width, int height, int whitePx, int blackPx) {
+		if (whitePx <= 0)
+			throw new IllegalArgumentException("whitePx");
+		if (blackPx < 0)
+			throw new IllegalArgumentException("blackPx");
+
+		this.maze = new Maze(width, height, true);
+		this.generator = TiledGenerator.of(this.maze);
+		this.whitePx = whitePx;
+		this.blackPx = blackPx;
+	}
+
+	// Same passages as GenerationPlan for the same seed.
+	public void regenerate(long seed, double errorFactor) {
+		this.maze.fill();
+		this.generator.generate(seed, errorFactor, null);
+	}
+
+	// The returned image is overwritten by the next call.
+	public BufferedImage generate(long seed, double errorFactor) {
+		regenerate(seed, errorFactor);
+		this.image = this.maze.createImage(this.whitePx, this.blackPx, this.image);
+		return this.image;
+	}
+
+	public void writePng(long seed, double errorFactor, OutputStream out) throws IOException {
+		this.encoder.write(generate(seed, errorFactor), out);
+	}
+
+	@Override
+	public void close() {
+		this.encoder.close();
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+
+final class ParallelTasks {
+	private ParallelTasks() {}
+
+	// Waits for all tasks, rethrowing the first failure.
+	static void join(ForkJoinTask<?>[] tasks) {
+		boolean interrupted = false;
+		try {
+			for (ForkJoinTask<?> task : tasks) {
+				while (true) {
+					try {
+						task.get();
+						break;
+					} catch (InterruptedException e) {
+						interrupted = true;
+					} catch (ExecutionException e) {
+						for (ForkJoinTask<?> t : tasks)
+							t.cancel(false);
+						Throwable cause = e.getCause();
+						if (cause instanceof RuntimeException)
+							throw (RuntimeException) cause;
+						if (cause instanceof Error)
+							throw (Error) cause;
+						throw new RuntimeException(cause);
+					}
+				}
+			}
+		} finally {
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+}
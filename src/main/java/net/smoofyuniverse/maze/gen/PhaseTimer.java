@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import net.smoofyuniverse.maze.gen.GenerationMetrics.Phase;
+
+import java.lang.management.ManagementFactory;
+
+// Measures a phase and reports it to the metrics of the maze, to GenerationStats and as a JFR event.
+// Nothing is measured when none of them listens.
+final class PhaseTimer {
+	static final PhaseTimer NONE = new PhaseTimer();
+
+	private final GenerationMetrics metrics;
+	private final String name;
+	private final long cells;
+	private final DisjointSet groups;
+	private final boolean counting;
+	private final PhaseEvent event;
+	private final long start, startFinds, startPathLength, startAllocated;
+
+	private PhaseTimer() {
+		this.metrics = null;
+		this.name = null;
+		this.cells = 0;
+		this.groups = null;
+		this.counting = false;
+		this.event = null;
+		this.start = 0;
+		this.startFinds = 0;
+		this.startPathLength = 0;
+		this.startAllocated = 0;
+	}
+
+	private PhaseTimer(GenerationMetrics metrics, String name, long cells, DisjointSet groups, PhaseEvent event) {
+		this.metrics = metrics;
+		this.name = name;
+		this.cells = cells;
+		this.groups = groups;
+		this.counting = groups != null && groups.isCounting();
+		if (groups != null)
+			groups.setCounting(true);
+		this.startFinds = groups == null ? 0 : groups.getFinds();
+		this.startPathLength = groups == null ? 0 : groups.getPathLength();
+		this.startAllocated = Allocations.current();
+
+		this.event = event.isEnabled() ? event : null;
+		if (this.event != null)
+			this.event.begin();
+		this.start = System.nanoTime();
+	}
+
+	// Groups may be null, they count their operations until the phase stops. They must not be shared by several threads.
+	static PhaseTimer start(GenerationMetrics metrics, String name, long cells, DisjointSet groups) {
+		PhaseEvent event = new PhaseEvent();
+		if (metrics == null && !GenerationStats.isEnabled() && !event.isEnabled())
+			return NONE;
+		return new PhaseTimer(metrics, name, cells, groups, event);
+	}
+
+	void stop() {
+		stop(0);
+	}
+
+	void stop(long wastedDraws) {
+		if (this == NONE)
+			return;
+
+		long nanos = System.nanoTime() - this.start;
+		long allocated = this.startAllocated == -1 ? -1 : Allocations.current() - this.startAllocated;
+		long finds = this.groups == null ? 0 : this.groups.getFinds() - this.startFinds;
+		long pathLength = this.groups == null ? 0 : this.groups.getPathLength() - this.startPathLength;
+		if (this.groups != null)
+			this.groups.setCounting(this.counting);
+		Phase phase = new Phase(this.name, this.cells, nanos, wastedDraws, finds, pathLength, allocated);
+
+		if (this.metrics != null)
+			this.metrics.add(phase);
+		if (GenerationStats.isEnabled())
+			GenerationStats.INSTANCE.record(phase);
+		if (this.event != null) {
+			this.event.end();
+			if (this.event.shouldCommit()) {
+				this.event.phase = this.name;
+				this.event.cells = this.cells;
+				this.event.wastedDraws = wastedDraws;
+				this.event.finds = finds;
+				this.event.pathLength = pathLength;
+				this.event.allocatedBytes = allocated;
+				this.event.commit();
+			}
+		}
+	}
+
+	// Loaded on the first measured phase, the management classes are slow to initialize
+	private static final class Allocations {
+		static final com.sun.management.ThreadMXBean threads = threads();
+
+		private static com.sun.management.ThreadMXBean threads() {
+			if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t && t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled())
+				return t;
+			return null;
+		}
+
+		static long current() {
+			return threads == null ? -1 : threads.getCurrentThreadAllocatedBytes();
+		}
+	}
+}
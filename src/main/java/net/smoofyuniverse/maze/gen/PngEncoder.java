@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Encodes binary images as PNG on the calling thread, reusing its buffers and deflater from one image to the next.
+// Suited to many small images, see PngRowSink for large ones. Not thread-safe.
+public class PngEncoder implements AutoCloseable {
+	private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+	private static final byte[] IHDR = type("IHDR"), IDAT = type("IDAT"), IEND = type("IEND");
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	private final Deflater deflater;
+	private final CRC32 crc = new CRC32();
+	private final byte[] header = new byte[13], chunk = new byte[CHUNK_SIZE], buffer = new byte[8];
+	private byte[] raw = new byte[0];
+
+	public PngEncoder() {
+		this(Deflater.DEFAULT_COMPRESSION);
+	}
+
+	public PngEncoder(int level) {
+		this.deflater = new Deflater(level);
+	}
+
+	private static byte[] type(String name) {
+		return name.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	// The image must be TYPE_BYTE_BINARY, as created by Maze.createImage.
+	public void write(BufferedImage image, OutputStream out) throws IOException {
+		if (image == null || image.getType() != BufferedImage.TYPE_BYTE_BINARY || image.getColorModel().getPixelSize() != 1 || image.getRaster().getParent() != null)
+			throw new IllegalArgumentException("image");
+		if (out == null)
+			throw new IllegalArgumentException("out");
+
+		int width = image.getWidth(), height = image.getHeight(), stride = (width + 7) >>> 3, lineLength = stride + 1;
+		byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+		// Each line is preceded by its filter type, none
+		int length = lineLength * height;
+		if (this.raw.length < length)
+			this.raw = new byte[length];
+		for (int y = 0; y < height; y++) {
+			this.raw[y * lineLength] = 0;
+			System.arraycopy(data, y * stride, this.raw, y * lineLength + 1, stride);
+		}
+
+		out.write(SIGNATURE);
+
+		putInt(this.header, 0, width);
+		putInt(this.header, 4, height);
+		this.header[8] = 1; // bit depth
+		this.header[9] = 0; // grayscale
+		this.header[10] = 0; // deflate
+		this.header[11] = 0; // adaptive filtering
+		this.header[12] = 0; // no interlace
+		writeChunk(out, IHDR, this.header, 13);
+
+		this.deflater.reset();
+		this.deflater.setInput(this.raw, 0, length);
+		this.deflater.finish();
+		int chunkLength = 0;
+		while (!this.deflater.finished()) {
+			chunkLength += this.deflater.deflate(this.chunk, chunkLength, CHUNK_SIZE - chunkLength);
+			if (chunkLength == CHUNK_SIZE) {
+				writeChunk(out, IDAT, this.chunk, chunkLength);
+				chunkLength = 0;
+			}
+		}
+		if (chunkLength != 0)
+			writeChunk(out, IDAT, this.chunk, chunkLength);
+
+		writeChunk(out, IEND, this.chunk, 0);
+	}
+
+	private void writeChunk(OutputStream out, byte[] type, byte[] data, int length) throws IOException {
+		putInt(this.buffer, 0, length);
+		System.arraycopy(type, 0, this.buffer, 4, 4);
+		out.write(this.buffer, 0, 8);
+		out.write(data, 0, length);
+
+		this.crc.reset();
+		this.crc.update(type);
+		this.crc.update(data, 0, length);
+		putInt(this.buffer, 0, (int) this.crc.getValue());
+		out.write(this.buffer, 0, 4);
+	}
+
+	private static void putInt(byte[] b, int offset, int value) {
+		b[offset] = (byte) (value >>> 24);
+		b[offset + 1] = (byte) (value >>> 16);
+		b[offset + 2] = (byte) (value >>> 8);
+		b[offset + 3] = (byte) value;
+	}
+
+	@Override
+	public void close() {
+		this.deflater.end();
+	}
+}
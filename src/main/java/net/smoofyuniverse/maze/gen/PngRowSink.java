@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Encodes rows as a 1-bit grayscale PNG while they are produced.
+// Scanlines are rendered by the caller and compressed by a dedicated thread, both sharing a few blocks of scanlines.
+public class PngRowSink implements RowSink, Closeable {
+	private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+	private static final int CHUNK_SIZE = 1 << 16, BLOCK_SIZE = 1 << 16, BLOCKS = 3;
+
+	public final int width, height;
+	public final RowRenderer renderer;
+	public final long imageHeight;
+
+	private final WritableByteChannel channel;
+	private final int lineLength, blockLines;
+	private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(BLOCKS), filled = new ArrayBlockingQueue<>(BLOCKS + 1);
+	private final byte[] cells, walls;
+	private final Thread compressor;
+	private final CRC32 crc = new CRC32();
+	private final int level;
+
+	private volatile Throwable failure;
+	private byte[] block;
+	private int blockLength, nextRow;
+	private boolean finished;
+
+	public PngRowSink(WritableByteChannel channel, int width, int height, int whitePx, int blackPx) throws IOException {
+		this(channel, width, height, whitePx, blackPx, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	public PngRowSink(WritableByteChannel channel, int width, int height, int whitePx, int blackPx, int level) throws IOException {
+		if (channel == null)
+			throw new IllegalArgumentException("channel");
+		if (height <= 0)
+			throw new IllegalArgumentException("height");
+
+		this.renderer = new RowRenderer(width, whitePx, blackPx);
+		this.imageHeight = RowRenderer.imageSize(height, whitePx, blackPx);
+		if (this.imageHeight > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("height");
+
+		this.channel = channel;
+		this.width = width;
+		this.height = height;
+		this.level = level;
+
+		this.lineLength = this.renderer.stride + 1;
+		this.blockLines = Math.max(1, BLOCK_SIZE / this.lineLength);
+		for (int i = 0; i < BLOCKS; i++)
+			this.free.add(new byte[this.blockLines * this.lineLength]);
+		this.cells = new byte[this.renderer.stride];
+		this.walls = new byte[this.renderer.stride];
+
+		writeHeader();
+
+		this.compressor = new Thread(this::compress, "PNG compressor");
+		this.compressor.setDaemon(true);
+		this.compressor.start();
+	}
+
+	private void writeHeader() throws IOException {
+		write(ByteBuffer.wrap(SIGNATURE));
+
+		ByteBuffer header = ByteBuffer.allocate(13);
+		header.putInt(this.renderer.imageWidth);
+		header.putInt((int) this.imageHeight);
+		header.put((byte) 1); // bit depth
+		header.put((byte) 0); // grayscale
+		header.put((byte) 0); // deflate
+		header.put((byte) 0); // adaptive filtering
+		header.put((byte) 0); // no interlace
+		writeChunk("IHDR", header.array(), 13);
+	}
+
+	@Override
+	public void accept(int y, long[] right, long[] down) throws IOException {
+		if (this.finished || y != this.nextRow)
+			throw new IllegalStateException("Row " + y + " received while expecting row " + this.nextRow);
+
+		if (y == 0) {
+			// Top border
+			for (int i = 0; i < this.renderer.blackPx; i++)
+				appendLine(this.walls);
+		}
+
+		this.renderer.renderCells(right, this.cells, 0);
+		for (int i = 0; i < this.renderer.whitePx; i++)
+			appendLine(this.cells);
+
+		this.renderer.renderWalls(down, this.walls, 0);
+		for (int i = 0; i < this.renderer.blackPx; i++)
+			appendLine(this.walls);
+
+		this.nextRow++;
+	}
+
+	private void appendLine(byte[] line) throws IOException {
+		if (this.block == null) {
+			this.block = take(this.free);
+			this.blockLength = 0;
+		}
+
+		this.block[this.blockLength] = 0; // filter: none
+		System.arraycopy(line, 0, this.block, this.blockLength + 1, line.length);
+		this.blockLength += this.lineLength;
+
+		if (this.blockLength == this.block.length)
+			submitBlock();
+	}
+
+	private void submitBlock() throws IOException {
+		if (this.block == null)
+			return;
+
+		byte[] b = this.block;
+		if (this.blockLength != b.length) {
+			byte[] last = new byte[this.blockLength];
+			System.arraycopy(b, 0, last, 0, this.blockLength);
+			b = last;
+		}
+		put(this.filled, b);
+		this.block = null;
+	}
+
+	public void finish() throws IOException {
+		if (this.finished)
+			return;
+		if (this.nextRow != this.height)
+			throw new IllegalStateException("Only " + this.nextRow + " rows out of " + this.height + " were received");
+
+		submitBlock();
+		this.finished = true;
+		put(this.filled, new byte[0]);
+
+		try {
+			this.compressor.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compressing", e);
+		}
+		checkFailure();
+
+		writeChunk("IEND", new byte[0], 0);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!this.finished) {
+			this.finished = true;
+			this.compressor.interrupt();
+		}
+	}
+
+	private void compress() {
+		Deflater deflater = new Deflater(this.level);
+		byte[] chunk = new byte[CHUNK_SIZE];
+		int length = 0;
+		try {
+			while (true) {
+				byte[] b = this.filled.take();
+				if (b.length == 0)
+					break;
+
+				deflater.setInput(b);
+				while (!deflater.needsInput()) {
+					length += deflater.deflate(chunk, length, CHUNK_SIZE - length);
+					if (length == CHUNK_SIZE) {
+						writeChunk("IDAT", chunk, length);
+						length = 0;
+					}
+				}
+
+				if (b.length == this.blockLines * this.lineLength)
+					this.free.put(b);
+			}
+
+			deflater.finish();
+			while (!deflater.finished()) {
+				length += deflater.deflate(chunk, length, CHUNK_SIZE - length);
+				if (length == CHUNK_SIZE) {
+					writeChunk("IDAT", chunk, length);
+					length = 0;
+				}
+			}
+			if (length != 0)
+				writeChunk("IDAT", chunk, length);
+		} catch (Throwable t) {
+			this.failure = t;
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private void writeChunk(String type, byte[] data, int length) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(8);
+		header.putInt(length);
+		for (int i = 0; i < 4; i++)
+			header.put((byte) type.charAt(i));
+		header.flip();
+
+		this.crc.reset();
+		this.crc.update(header.array(), 4, 4);
+		this.crc.update(data, 0, length);
+
+		ByteBuffer footer = ByteBuffer.allocate(4);
+		footer.putInt((int) this.crc.getValue());
+		footer.flip();
+
+		write(header);
+		write(ByteBuffer.wrap(data, 0, length));
+		write(footer);
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining())
+			this.channel.write(buffer);
+	}
+
+	private <T> T take(BlockingQueue<T> queue) throws IOException {
+		try {
+			while (true) {
+				T value = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (value != null)
+					return value;
+				checkFailure();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while rendering", e);
+		}
+	}
+
+	private <T> void put(BlockingQueue<T> queue, T value) throws IOException {
+		try {
+			while (!queue.offer(value, 100, TimeUnit.MILLISECONDS))
+				checkFailure();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while rendering", e);
+		}
+	}
+
+	private void checkFailure() throws IOException {
+		Throwable t = this.failure;
+		if (t == null)
+			return;
+		if (t instanceof IOException)
+			throw (IOException) t;
+		throw new IOException("Compression failed", t);
+	}
+}
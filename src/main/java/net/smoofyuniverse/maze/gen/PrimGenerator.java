@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.smoofyuniverse.maze.gen;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+// Randomized Prim: a random frontier cell is attached to a random neighbour already in the maze.
+public class PrimGenerator extends AbstractMazeGenerator {
+
+	@Override
+	public Algorithm getAlgorithm() {
+		return Algorithm.PRIM;
+	}
+
+	@Override
+	public long memoryUsage(int width, int height) {
+		long size = (long) width * height;
+		// In practice the frontier stays around twice the perimeter of the maze
+		return MazeStore.memoryUsage(size, false) + 2 * bitsetSize(size) + 4 * Math.min(size, 4L * (width + height));
+	}
+
+	@Override
+	protected void carve(MazeStore store, RandomGenerator random) {
+		int n = store.size;
+		long[] visited = new long[(n + 63) >>> 6], frontier = new long[visited.length];
+		int[] cells = new int[Math.min(n, 1024)];
+		int[] candidates = new int[4];
+		int size = 0, done = 1;
+
+		int start = random.nextInt(n);
+		set(visited, start);
+		for (int d = 0; d < 4; d++) {
+			int next = store.neighbour(start, d);
+			if (next >= 0) {
+				set(frontier, next);
+				cells[size++] = next;
+			}
+		}
+
+		while (size != 0) {
+			int index = random.nextInt(size);
+			int cell = cells[index];
+			cells[index] = cells[--size];
+
+			int count = 0;
+			for (int d = 0; d < 4; d++) {
+				int next = store.neighbour(cell, d);
+				if (next < 0)
+					continue;
+
+				if (get(visited, next)) {
+					candidates[count++] = d;
+				} else if (!get(frontier, next)) {
+					set(frontier, next);
+					if (size == cells.length)
+						cells = Arrays.copyOf(cells, Math.min(n, cells.length + (cells.length >> 1)));
+					cells[size++] = next;
+				}
+			}
+
+			store.open(store.edge(cell, candidates[count == 1 ? 0 : random.nextInt(count)]));
+			set(visited, cell);
+			if (progress(++done))
+				return;
+		}
+	}
+}
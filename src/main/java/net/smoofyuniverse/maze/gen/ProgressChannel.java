@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.smoofyuniverse.maze.gen;
+
+import net.smoofyuniverse.common.task.ProgressListener;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Progress and cancellation between a generation and its listener.
+// Workers publish the amount of work done once per chunk and check cancellation at the same time,
+// the listener is only called by a shared sampler thread at a low rate.
+public final class ProgressChannel implements AutoCloseable {
+	// Number of cells between two reports
+	public static final int CHUNK = 4096, CHUNK_MASK = CHUNK - 1;
+	private static final long SAMPLE_INTERVAL = 50;
+
+	private static final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "Maze progress sampler");
+		t.setDaemon(true);
+		return t;
+	});
+
+	private final ProgressListener listener;
+	private final ScheduledFuture<?> sampling;
+	private final AtomicLong done = new AtomicLong();
+	private volatile long total = 1;
+	private volatile boolean cancelled, closed;
+
+	private ProgressChannel(ProgressListener listener) {
+		this.listener = listener;
+		this.sampling = listener == null ? null : sampler.scheduleAtFixedRate(this::sample, SAMPLE_INTERVAL, SAMPLE_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	// The listener may be null, nothing is scheduled then.
+	public static ProgressChannel open(ProgressListener listener) {
+		if (listener != null)
+			listener.setProgress(0);
+		return new ProgressChannel(listener);
+	}
+
+	// Starts a new phase of the given amount of work.
+	public void phase(long total) {
+		this.total = Math.max(1, total);
+		this.done.lazySet(0);
+	}
+
+	public void report(long done) {
+		this.done.lazySet(done);
+	}
+
+	// Used when several workers share the same phase.
+	public void add(long done) {
+		this.done.addAndGet(done);
+	}
+
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+
+	private synchronized void sample() {
+		if (this.closed)
+			return;
+
+		if (this.listener.isCancelled())
+			this.cancelled = true;
+		else
+			this.listener.setProgress(Math.min(1, this.done.get() / (double) this.total));
+	}
+
+	@Override
+	public synchronized void close() {
+		if (this.closed)
+			return;
+
+		this.closed = true;
+		if (this.sampling == null)
+			return;
+
+		this.sampling.cancel(false);
+		if (this.listener.isCancelled())
+			this.cancelled = true;
+		else
+			this.listener.setProgress(1);
+	}
+}
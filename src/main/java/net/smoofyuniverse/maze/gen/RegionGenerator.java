@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+// Carves again the passages inside a region of a generated maze, leaving the rest untouched, in a time that only depends on the size of the region.
+// Which openings of the region are connected outside of it is unknown without walking through the whole maze:
+// the old passages joining two openings through the region are kept, all others are cut and drawn again.
+// A part of the region reached through a single opening may lose it to be joined to another part. A perfect maze stays perfect.
+public class RegionGenerator {
+	private static final int UP = Direction.UP.ordinal(), DOWN = Direction.DOWN.ordinal(), RIGHT = Direction.RIGHT.ordinal();
+
+	public final Maze maze;
+
+	public RegionGenerator(Maze maze) {
+		if (!maze.isCompact())
+			throw new IllegalArgumentException("maze");
+
+		this.maze = maze;
+	}
+
+	public void generate(int x, int y, int width, int height, long seed, double errorFactor) {
+		if (x < 0 || x >= this.maze.width)
+			throw new IllegalArgumentException("x");
+		if (y < 0 || y >= this.maze.height)
+			throw new IllegalArgumentException("y");
+		if (width <= 0 || width > this.maze.width - x)
+			throw new IllegalArgumentException("width");
+		if (height <= 0 || height > this.maze.height - y)
+			throw new IllegalArgumentException("height");
+
+		int[] cells = new int[width * height];
+		for (int dy = 0, k = 0; dy < height; dy++) {
+			int pos = (y + dy) * this.maze.width + x;
+			for (int dx = 0; dx < width; dx++)
+				cells[k++] = pos + dx;
+		}
+		generate(cells, seed, errorFactor);
+	}
+
+	// The region is made of the cells whose position is set in the mask.
+	public void generate(BitSet mask, long seed, double errorFactor) {
+		if (mask == null || mask.length() > this.maze.size)
+			throw new IllegalArgumentException("mask");
+
+		int[] cells = mask.stream().toArray();
+		if (cells.length != 0)
+			generate(cells, seed, errorFactor);
+	}
+
+	// Cells are sorted by position and indexed by their rank.
+	private void generate(int[] cells, long seed, double errorFactor) {
+		if (errorFactor < 0 || errorFactor > 1)
+			throw new IllegalArgumentException("errorFactor");
+
+		PhaseTimer timer = PhaseTimer.start(this.maze.metrics, GenerationMetrics.CONNECT, cells.length, null);
+		MazeStore store = this.maze.store;
+		int n = cells.length, width = this.maze.width;
+
+		// Ranks of the cells below and above each cell, -1 outside of the region
+		int[] below = new int[n], above = new int[n];
+		Arrays.fill(above, -1);
+		for (int k = 0, l = 0; k < n; k++) {
+			long target = (long) cells[k] + width;
+			while (l < n && cells[l] < target)
+				l++;
+			below[k] = l < n && cells[l] == target ? l : -1;
+			if (below[k] >= 0)
+				above[below[k]] = k;
+		}
+
+		// Parts of the region connected by the old passages, with the openings of each cell on the rest of the maze
+		DisjointSet parts = new DisjointSet(n);
+		int[] degrees = new int[n], openings = new int[n];
+		long[] lastOpenings = new long[n];
+		for (int k = 0; k < n; k++) {
+			int i = cells[k];
+			for (int d = 0; d < 4; d++) {
+				if (store.neighbour(i, d) < 0 || !store.isOpen(store.edge(i, d)))
+					continue;
+
+				int l = rank(cells, below, above, k, d);
+				if (l < 0) {
+					openings[k]++;
+					lastOpenings[k] = store.edge(i, d);
+				} else {
+					degrees[k]++;
+					if (d == DOWN || d == RIGHT)
+						parts.union(k, l);
+				}
+			}
+		}
+
+		int[] partOpenings = new int[n];
+		long[] partOpening = new long[n];
+		for (int k = 0; k < n; k++) {
+			if (openings[k] != 0) {
+				int part = parts.find(k);
+				partOpenings[part] += openings[k];
+				partOpening[part] = lastOpenings[k];
+			}
+		}
+
+		// Prunes the dead ends of each part: what remains joins its openings
+		boolean[] pruned = new boolean[n];
+		int[] stack = new int[n];
+		int top = 0;
+		for (int k = 0; k < n; k++) {
+			if (degrees[k] <= 1 && openings[k] == 0 || partOpenings[parts.find(k)] == 0) {
+				pruned[k] = true;
+				stack[top++] = k;
+			}
+		}
+		while (top != 0) {
+			int k = stack[--top], i = cells[k];
+			for (int d = 0; d < 4; d++) {
+				if (store.neighbour(i, d) < 0 || !store.isOpen(store.edge(i, d)))
+					continue;
+
+				int l = rank(cells, below, above, k, d);
+				if (l >= 0 && !pruned[l] && --degrees[l] == 1 && openings[l] == 0) {
+					pruned[l] = true;
+					stack[top++] = l;
+				}
+			}
+		}
+
+		// Keeps the passages between the remaining cells and cuts the others, edges are listed as 2 * rank + 1 when going down
+		DisjointSet sets = new DisjointSet(n);
+		long[] edges = new long[2 * n];
+		int count = 0;
+		for (int k = 0; k < n; k++) {
+			int i = cells[k];
+			for (int down = 0; down < 2; down++) {
+				int l = rank(cells, below, above, k, down == 0 ? RIGHT : DOWN);
+				if (l < 0)
+					continue;
+
+				long edge = 2L * i + down;
+				if (store.isOpen(edge) && !pruned[k] && !pruned[l]) {
+					sets.union(k, l);
+				} else {
+					store.close(edge);
+					edges[count++] = 2L * k + down;
+				}
+			}
+		}
+
+		// Per root of a set: the part whose openings it holds or -1, its number of openings and one of them
+		int[] labels = new int[n], counts = new int[n];
+		long[] opening = new long[n];
+		Arrays.fill(labels, -1);
+		for (int k = 0; k < n; k++) {
+			if (!pruned[k]) {
+				int part = parts.find(k), root = sets.find(k);
+				labels[root] = part;
+				counts[root] = partOpenings[part];
+				opening[root] = partOpening[part];
+			}
+		}
+
+		SplittableRandom random = new SplittableRandom(seed);
+		for (int e = count - 1; e > 0; e--) {
+			int f = random.nextInt(e + 1);
+			long edge = edges[e];
+			edges[e] = edges[f];
+			edges[f] = edge;
+		}
+
+		int rejected = 0;
+		for (int e = 0; e < count; e++) {
+			long edge = edges[e];
+			int k = (int) (edge >>> 1), down = (int) (edge & 1);
+			int a = sets.find(k), b = sets.find(down == 0 ? k + 1 : below[k]);
+			if (a != b && join(store, sets, labels, counts, opening, a, b))
+				store.open(2L * cells[k] + down);
+			else
+				edges[rejected++] = edge;
+		}
+
+		int errors = (int) (rejected * errorFactor);
+		for (int e = 0; e < errors; e++)
+			store.open(2L * cells[(int) (edges[e] >>> 1)] + (edges[e] & 1));
+		timer.stop();
+	}
+
+	// Two sets holding the openings of different parts would close a loop through the rest of the maze,
+	// unless one of them gives up its single opening.
+	private static boolean join(MazeStore store, DisjointSet sets, int[] labels, int[] counts, long[] opening, int a, int b) {
+		int keep;
+		if (labels[a] < 0 || labels[a] == labels[b]) {
+			keep = b;
+		} else if (labels[b] < 0) {
+			keep = a;
+		} else if (counts[a] == 1) {
+			store.close(opening[a]);
+			keep = b;
+		} else if (counts[b] == 1) {
+			store.close(opening[b]);
+			keep = a;
+		} else {
+			return false;
+		}
+
+		int label = labels[keep], count = counts[keep];
+		long open = opening[keep];
+		sets.union(a, b);
+		int root = sets.find(a);
+		labels[root] = label;
+		counts[root] = count;
+		opening[root] = open;
+		return true;
+	}
+
+	// Rank of the neighbour of the cell of rank k in the given direction, -1 outside of the region or of the maze.
+	private int rank(int[] cells, int[] below, int[] above, int k, int direction) {
+		if (direction == DOWN)
+			return below[k];
+		if (direction == UP)
+			return above[k];
+
+		int i = cells[k], column = this.maze.store.column(i);
+		if (direction == RIGHT)
+			return column != this.maze.width - 1 && k + 1 < cells.length && cells[k + 1] == i + 1 ? k + 1 : -1;
+		return column != 0 && k != 0 && cells[k - 1] == i - 1 ? k - 1 : -1;
+	}
+}
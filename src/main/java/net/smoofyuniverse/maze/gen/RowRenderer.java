@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import java.util.Arrays;
+
+// Renders rows of cells as 1-bit scanlines, most significant bit first, 0 for black and 1 for white.
+public class RowRenderer {
+	public final int width, whitePx, blackPx, imageWidth, stride;
+
+	public RowRenderer(int width, int whitePx, int blackPx) {
+		if (width <= 0)
+			throw new IllegalArgumentException("width");
+		if (whitePx <= 0)
+			throw new IllegalArgumentException("whitePx");
+		if (blackPx < 0)
+			throw new IllegalArgumentException("blackPx");
+
+		long imageWidth = imageSize(width, whitePx, blackPx);
+		if (imageWidth > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("width");
+
+		this.width = width;
+		this.whitePx = whitePx;
+		this.blackPx = blackPx;
+		this.imageWidth = (int) imageWidth;
+		this.stride = (int) ((imageWidth + 7) >>> 3);
+	}
+
+	public static long imageSize(int cells, int whitePx, int blackPx) {
+		return (long) cells * whitePx + (cells + 1L) * blackPx;
+	}
+
+	public void renderCells(long[] right, byte[] line, int offset) {
+		Arrays.fill(line, offset, offset + this.stride, (byte) 0);
+
+		int start = this.blackPx, end = start;
+		for (int x = 0; x < this.width; x++) {
+			end += this.whitePx;
+			if (x != this.width - 1 && (right[x >>> 6] & (1L << x)) != 0) {
+				end += this.blackPx;
+			} else {
+				setBits(line, offset, start, end);
+				end += this.blackPx;
+				start = end;
+			}
+		}
+	}
+
+	public void renderWalls(long[] down, byte[] line, int offset) {
+		Arrays.fill(line, offset, offset + this.stride, (byte) 0);
+
+		int step = this.whitePx + this.blackPx;
+		for (int i = 0; i < down.length; i++) {
+			long bits = down[i];
+			while (bits != 0) {
+				int x = (i << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+				if (x >= this.width)
+					break;
+
+				int start = this.blackPx + x * step;
+				setBits(line, offset, start, start + this.whitePx);
+			}
+		}
+	}
+
+	public static void clearBits(byte[] line, int offset, int from, int to) {
+		if (from >= to)
+			return;
+
+		int first = from >>> 3, last = (to - 1) >>> 3;
+		int head = 0xFF >>> (from & 7), tail = (0xFF << (7 - ((to - 1) & 7))) & 0xFF;
+		if (first == last) {
+			line[offset + first] &= (byte) ~(head & tail);
+		} else {
+			line[offset + first] &= (byte) ~head;
+			Arrays.fill(line, offset + first + 1, offset + last, (byte) 0);
+			line[offset + last] &= (byte) ~tail;
+		}
+	}
+
+	public static void setBits(byte[] line, int offset, int from, int to) {
+		if (from >= to)
+			return;
+
+		int first = from >>> 3, last = (to - 1) >>> 3;
+		int head = 0xFF >>> (from & 7), tail = (0xFF << (7 - ((to - 1) & 7))) & 0xFF;
+		if (first == last) {
+			line[offset + first] |= (byte) (head & tail);
+		} else {
+			line[offset + first] |= (byte) head;
+			Arrays.fill(line, offset + first + 1, offset + last, (byte) 0xFF);
+			line[offset + last] |= (byte) tail;
+		}
+	}
+}
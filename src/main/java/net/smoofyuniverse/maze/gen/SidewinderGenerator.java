@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.smoofyuniverse.maze.gen;
+
+import java.util.random.RandomGenerator;
+
+// Sidewinder: runs of horizontal passages, each run opens one passage to the previous row. Works row by row.
+public class SidewinderGenerator extends AbstractMazeGenerator {
+
+	@Override
+	public Algorithm getAlgorithm() {
+		return Algorithm.SIDEWINDER;
+	}
+
+	@Override
+	public long memoryUsage(int width, int height) {
+		return MazeStore.memoryUsage((long) width * height, false);
+	}
+
+	@Override
+	protected void carve(MazeStore store, RandomGenerator random) {
+		int w = store.width;
+		for (int x = 1; x < w; x++)
+			store.openRight(x - 1);
+
+		for (int y = 1, row = w; y < store.height; y++, row += w) {
+			int run = 0;
+			for (int x = 0; x < w; x++) {
+				if (x == w - 1 || random.nextBoolean()) {
+					store.openDown(row - w + run + (x == run ? 0 : random.nextInt(x - run + 1)));
+					run = x + 1;
+				} else {
+					store.openRight(row + x);
+				}
+			}
+
+			if (progress(row + w))
+				return;
+		}
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import net.smoofyuniverse.common.task.ProgressListener;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+public class StreamingMaze {
+	public final int width, height;
+	public ProgressListener listener;
+	public GenerationMetrics metrics;
+
+	private long bits;
+	private int bitCount;
+
+	public StreamingMaze(int width, int height) {
+		if (width <= 0)
+			throw new IllegalArgumentException("width");
+		if (height <= 0)
+			throw new IllegalArgumentException("height");
+
+		this.width = width;
+		this.height = height;
+	}
+
+	public void generate(Random random, double errorFactor, RowSink sink) throws IOException {
+		if (random == null)
+			throw new IllegalArgumentException("random");
+		if (errorFactor < 0 || errorFactor > 1)
+			throw new IllegalArgumentException("errorFactor");
+		if (sink == null)
+			throw new IllegalArgumentException("sink");
+
+		if (this.listener != null)
+			this.listener.setCancelled(false);
+
+		// Rows are given to the sink as they are generated: the phase includes their rendering
+		PhaseTimer timer = PhaseTimer.start(this.metrics, GenerationMetrics.CONNECT, (long) this.width * this.height, null);
+		try (ProgressChannel progress = ProgressChannel.open(this.listener)) {
+			progress.phase(this.height);
+			generate(random, errorFactor, sink, progress);
+		}
+		timer.stop();
+	}
+
+	private void generate(Random random, double errorFactor, RowSink sink, ProgressChannel progress) throws IOException {
+		int w = this.width;
+		// Set of each cell of the current row, sets are numbered from 0 and merged through a union-find
+		int[] labels = new int[w], parents = new int[w];
+		// Per set: cells in the row and cell forced down when no other cell of the set goes down
+		int[] counts = new int[w], forced = new int[w];
+		boolean[] descending = new boolean[w];
+		long[] right = new long[(w + 63) >>> 6], down = new long[right.length];
+
+		Arrays.fill(labels, -1);
+		int count = 0;
+		this.bitCount = 0;
+
+		for (int y = 0; y < this.height; y++) {
+			boolean last = y == this.height - 1;
+
+			for (int x = 0; x < w; x++) {
+				if (labels[x] < 0)
+					labels[x] = count++;
+			}
+			for (int i = 0; i < count; i++)
+				parents[i] = i;
+
+			Arrays.fill(right, 0);
+			Arrays.fill(down, 0);
+
+			for (int x = 0; x < w - 1; x++) {
+				int a = find(parents, labels[x]), b = find(parents, labels[x + 1]);
+				if (a != b && (last || nextBit(random))) {
+					parents[b] = a;
+					right[x >>> 6] |= 1L << x;
+				} else if (errorFactor != 0 && random.nextDouble() < errorFactor) {
+					// Opened without merging sets: the two cells will be connected again later, making a loop
+					right[x >>> 6] |= 1L << x;
+				}
+			}
+
+			if (!last) {
+				Arrays.fill(counts, 0, count, 0);
+				Arrays.fill(descending, 0, count, false);
+
+				boolean missing = false;
+				for (int x = 0; x < w; x++) {
+					int r = find(parents, labels[x]);
+					labels[x] = r;
+					counts[r]++;
+					if (nextBit(random)) {
+						down[x >>> 6] |= 1L << x;
+						descending[r] = true;
+					}
+				}
+
+				for (int r = 0; r < count; r++) {
+					if (counts[r] != 0 && !descending[r]) {
+						forced[r] = random.nextInt(counts[r]);
+						missing = true;
+					}
+				}
+
+				if (missing) {
+					for (int x = 0; x < w; x++) {
+						int r = labels[x];
+						if (!descending[r] && forced[r]-- == 0) {
+							down[x >>> 6] |= 1L << x;
+							descending[r] = true;
+						}
+					}
+				}
+
+				// Renumber the sets continuing below, other cells of the next row start their own set
+				Arrays.fill(counts, 0, count, -1);
+				int next = 0;
+				for (int x = 0; x < w; x++) {
+					if ((down[x >>> 6] & (1L << x)) != 0) {
+						int r = labels[x];
+						if (counts[r] < 0)
+							counts[r] = next++;
+						labels[x] = counts[r];
+					} else {
+						labels[x] = -1;
+						if (errorFactor != 0 && random.nextDouble() < errorFactor)
+							down[x >>> 6] |= 1L << x;
+					}
+				}
+				count = next;
+			}
+
+			sink.accept(y, right, down);
+
+			progress.report(y + 1);
+			if (progress.isCancelled())
+				return;
+		}
+	}
+
+	private boolean nextBit(Random random) {
+		if (this.bitCount == 0) {
+			this.bits = random.nextLong();
+			this.bitCount = 64;
+		}
+		this.bitCount--;
+		boolean bit = (this.bits & 1) != 0;
+		this.bits >>>= 1;
+		return bit;
+	}
+
+	private static int find(int[] parents, int i) {
+		int p;
+		while ((p = parents[i]) != i) {
+			int gp = parents[p];
+			parents[i] = gp;
+			i = gp;
+		}
+		return i;
+	}
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Writes the maze as an SVG with the same geometry as the images of RowRenderer.
+// Closed walls are merged into maximal horizontal and vertical runs as the rows arrive,
+// so the output grows with the number of runs rather than with the number of cells.
+public class SvgRowSink implements RowSink {
+	private static final int BUFFER_SIZE = 1 << 16;
+	// Rectangles per path element
+	private static final int PATH_SIZE = 1 << 12;
+
+	public final int width, height, whitePx, blackPx;
+	public final long imageWidth, imageHeight;
+
+	private final WritableByteChannel channel;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private final ByteBuffer view = ByteBuffer.wrap(this.buffer);
+	private final long cellPx;
+	// Row where the run in progress on vertical line i + 1 started, -1 when the wall is open
+	private final int[] runStarts;
+	private final long[] previousRight, previousDown;
+
+	private int length, nextRow, rectangles;
+	private long lastX, lastY;
+	private boolean finished;
+
+	public SvgRowSink(WritableByteChannel channel, int width, int height, int whitePx, int blackPx) throws IOException {
+		if (channel == null)
+			throw new IllegalArgumentException("channel");
+		if (width <= 0)
+			throw new IllegalArgumentException("width");
+		if (height <= 0)
+			throw new IllegalArgumentException("height");
+		if (whitePx <= 0)
+			throw new IllegalArgumentException("whitePx");
+		if (blackPx < 0)
+			throw new IllegalArgumentException("blackPx");
+
+		this.channel = channel;
+		this.width = width;
+		this.height = height;
+		this.whitePx = whitePx;
+		this.blackPx = blackPx;
+		this.cellPx = (long) whitePx + blackPx;
+		this.imageWidth = RowRenderer.imageSize(width, whitePx, blackPx);
+		this.imageHeight = RowRenderer.imageSize(height, whitePx, blackPx);
+
+		this.runStarts = new int[width - 1];
+		this.previousRight = new long[(width + 63) >>> 6];
+		this.previousDown = new long[this.previousRight.length];
+		// Every wall of the first row starts a run
+		Arrays.fill(this.runStarts, -1);
+		Arrays.fill(this.previousRight, -1L);
+
+		append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"");
+		append(this.imageWidth);
+		append("\" height=\"");
+		append(this.imageHeight);
+		append("\" shape-rendering=\"crispEdges\">\n<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/>\n");
+	}
+
+	@Override
+	public void accept(int y, long[] right, long[] down) throws IOException {
+		if (this.finished || y != this.nextRow)
+			throw new IllegalStateException("Row " + y + " received while expecting row " + this.nextRow);
+
+		if (this.blackPx != 0) {
+			if (y == 0)
+				horizontal(0, 0, this.width - 1);
+			else
+				horizontalRuns(y, this.previousDown);
+			verticalRuns(y, right);
+			if (y != 0)
+				pillars(y, right);
+		}
+
+		System.arraycopy(right, 0, this.previousRight, 0, this.previousRight.length);
+		System.arraycopy(down, 0, this.previousDown, 0, this.previousDown.length);
+		this.nextRow++;
+	}
+
+	// Closed walls of the horizontal line above row y, open where the cell above goes down.
+	private void horizontalRuns(int y, long[] open) throws IOException {
+		int x = nextClear(open, 0, this.width);
+		while (x < this.width) {
+			int end = nextSet(open, x, this.width);
+			horizontal(y, x, end - 1);
+			x = end < this.width ? nextClear(open, end, this.width) : end;
+		}
+	}
+
+	// Vertical lines 1 to width - 1 change only where the right passages differ from the previous row.
+	private void verticalRuns(int y, long[] right) throws IOException {
+		int lines = this.width - 1;
+		for (int w = 0; w < right.length; w++) {
+			long changes = right[w] ^ this.previousRight[w];
+			while (changes != 0) {
+				int k = (w << 6) + Long.numberOfTrailingZeros(changes);
+				changes &= changes - 1;
+				if (k >= lines)
+					break;
+
+				if ((right[w] & (1L << k)) != 0) {
+					vertical(k + 1, this.runStarts[k], y - 1);
+					this.runStarts[k] = -1;
+				} else {
+					this.runStarts[k] = y;
+				}
+			}
+		}
+	}
+
+	// Pillars of the horizontal line above row y not touched by any wall, found through the four passages around them.
+	private void pillars(int y, long[] right) throws IOException {
+		int lines = this.width - 1;
+		long[] down = this.previousDown;
+		for (int w = 0; w < right.length; w++) {
+			long nextDown = (down[w] >>> 1) | (w + 1 < down.length ? down[w + 1] << 63 : 0);
+			long isolated = down[w] & nextDown & this.previousRight[w] & right[w];
+			while (isolated != 0) {
+				int k = (w << 6) + Long.numberOfTrailingZeros(isolated);
+				isolated &= isolated - 1;
+				if (k >= lines)
+					break;
+				rectangle((k + 1) * this.cellPx, y * this.cellPx, this.blackPx, this.blackPx);
+			}
+		}
+	}
+
+	private void horizontal(int line, int x0, int x1) throws IOException {
+		rectangle(x0 * this.cellPx, line * this.cellPx, (x1 - x0 + 1) * this.cellPx + this.blackPx, this.blackPx);
+	}
+
+	private void vertical(int line, int y0, int y1) throws IOException {
+		rectangle(line * this.cellPx, y0 * this.cellPx, this.blackPx, (y1 - y0 + 1) * this.cellPx + this.blackPx);
+	}
+
+	private void rectangle(long x, long y, long w, long h) throws IOException {
+		// Each rectangle moves relatively to the start of the previous one
+		if (this.rectangles == 0) {
+			append("<path d=\"M");
+			append(x);
+			append(' ');
+			append(y);
+		} else {
+			append('m');
+			append(x - this.lastX);
+			if (y >= this.lastY)
+				append(' ');
+			append(y - this.lastY);
+		}
+		append('h');
+		append(w);
+		append('v');
+		append(h);
+		append("h-");
+		append(w);
+		append('z');
+
+		this.lastX = x;
+		this.lastY = y;
+		if (++this.rectangles == PATH_SIZE) {
+			append("\"/>\n");
+			this.rectangles = 0;
+		}
+	}
+
+	public void finish() throws IOException {
+		if (this.finished)
+			return;
+		if (this.nextRow != this.height)
+			throw new IllegalStateException("Only " + this.nextRow + " rows out of " + this.height + " were received");
+		this.finished = true;
+
+		if (this.blackPx != 0) {
+			horizontal(this.height, 0, this.width - 1);
+			vertical(0, 0, this.height - 1);
+			vertical(this.width, 0, this.height - 1);
+			for (int k = 0; k < this.runStarts.length; k++) {
+				if (this.runStarts[k] != -1)
+					vertical(k + 1, this.runStarts[k], this.height - 1);
+			}
+			if (this.rectangles != 0)
+				append("\"/>\n");
+		}
+
+		append("</svg>\n");
+		drain();
+	}
+
+	private static int nextSet(long[] bits, int from, int limit) {
+		int i = from >>> 6;
+		long word = bits[i] & (-1L << from);
+		while (word == 0) {
+			if (++i == bits.length)
+				return limit;
+			word = bits[i];
+		}
+		return Math.min(limit, (i << 6) + Long.numberOfTrailingZeros(word));
+	}
+
+	private static int nextClear(long[] bits, int from, int limit) {
+		int i = from >>> 6;
+		long word = ~bits[i] & (-1L << from);
+		while (word == 0) {
+			if (++i == bits.length)
+				return limit;
+			word = ~bits[i];
+		}
+		return Math.min(limit, (i << 6) + Long.numberOfTrailingZeros(word));
+	}
+
+	private void append(String s) throws IOException {
+		byte[] b = s.getBytes(StandardCharsets.US_ASCII);
+		if (this.length + b.length > BUFFER_SIZE)
+			drain();
+		System.arraycopy(b, 0, this.buffer, this.length, b.length);
+		this.length += b.length;
+	}
+
+	private void append(char c) throws IOException {
+		if (this.length == BUFFER_SIZE)
+			drain();
+		this.buffer[this.length++] = (byte) c;
+	}
+
+	private void append(long value) throws IOException {
+		// At most 20 characters
+		if (this.length + 20 > BUFFER_SIZE)
+			drain();
+		if (value < 0) {
+			this.buffer[this.length++] = '-';
+			value = -value;
+		}
+		int start = this.length;
+		do {
+			this.buffer[this.length++] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		for (int i = start, j = this.length - 1; i < j; i++, j--) {
+			byte t = this.buffer[i];
+			this.buffer[i] = this.buffer[j];
+			this.buffer[j] = t;
+		}
+	}
+
+	private void drain() throws IOException {
+		this.view.clear().limit(this.length);
+		while (this.view.hasRemaining())
+			this.channel.write(this.view);
+		this.length = 0;
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+// Renders square tiles of the image of a maze, as drawn by RowRenderer, without building the whole image.
+// At level L a tile pixel covers 2^L image pixels in each direction and is shaded by sampling up to 4x4 of them.
+// Thread-safe as long as the grid is not modified.
+public class TileRenderer {
+	public static final int WHITE = 0xFFFFFFFF, BLACK = 0xFF000000, OUTSIDE = 0;
+	// Samples per direction and per tile pixel, at most
+	private static final int MAX_SAMPLES = 4;
+
+	public final WallGrid grid;
+	public final int width, height, whitePx, blackPx, tileSize, maxLevel;
+	public final long imageWidth, imageHeight;
+
+	private final int cellPx;
+	// Gray of a tile pixel for each number of white samples, indexed by samples * samples
+	private final int[][] shades = new int[MAX_SAMPLES * MAX_SAMPLES + 1][];
+
+	public TileRenderer(WallGrid grid, int whitePx, int blackPx, int tileSize) {
+		if (grid == null)
+			throw new IllegalArgumentException("grid");
+		if (whitePx <= 0)
+			throw new IllegalArgumentException("whitePx");
+		if (blackPx < 0)
+			throw new IllegalArgumentException("blackPx");
+		if (tileSize <= 0)
+			throw new IllegalArgumentException("tileSize");
+
+		this.grid = grid;
+		this.width = grid.getWidth();
+		this.height = grid.getHeight();
+		this.whitePx = whitePx;
+		this.blackPx = blackPx;
+		this.tileSize = tileSize;
+		this.cellPx = whitePx + blackPx;
+		this.imageWidth = RowRenderer.imageSize(this.width, whitePx, blackPx);
+		this.imageHeight = RowRenderer.imageSize(this.height, whitePx, blackPx);
+
+		// The last level fits the whole image in a single tile
+		int level = 0;
+		while (Math.max(this.imageWidth, this.imageHeight) > (long) tileSize << level)
+			level++;
+		this.maxLevel = level;
+
+		for (int s = 1; s <= MAX_SAMPLES; s++) {
+			int count = s * s;
+			int[] shades = new int[count + 1];
+			for (int w = 0; w <= count; w++) {
+				int gray = (int) Math.round(w * 255.0 / count);
+				shades[w] = 0xFF000000 | gray << 16 | gray << 8 | gray;
+			}
+			this.shades[count] = shades;
+		}
+	}
+
+	public long tilesX(int level) {
+		long span = (long) this.tileSize << level;
+		return (this.imageWidth + span - 1) / span;
+	}
+
+	public long tilesY(int level) {
+		long span = (long) this.tileSize << level;
+		return (this.imageHeight + span - 1) / span;
+	}
+
+	// Returns tileSize * tileSize ARGB pixels, OUTSIDE beyond the image.
+	public int[] render(int level, long tileX, long tileY) {
+		if (level < 0 || level > 62)
+			throw new IllegalArgumentException("level");
+
+		int size = this.tileSize, samples = (int) Math.min(MAX_SAMPLES, 1L << Math.min(level, 2));
+		long scale = 1L << level, step = scale / samples;
+		long x0 = tileX * size * scale, y0 = tileY * size * scale;
+
+		// Classification of each sampled column and row: -1 outside, else cell index * 2 + 1 when inside a cell, cell index * 2 in a wall band
+		int n = size * samples;
+		long[] columns = new long[n], rows = new long[n];
+		for (int i = 0; i < n; i++) {
+			long offset = (i / samples) * scale + (i % samples) * step + step / 2;
+			columns[i] = classify(x0 + offset, this.imageWidth);
+			rows[i] = classify(y0 + offset, this.imageHeight);
+		}
+
+		int[] shades = this.shades[samples * samples];
+		int[] pixels = new int[size * size];
+		for (int py = 0; py < size; py++) {
+			for (int px = 0; px < size; px++) {
+				int white = 0;
+				boolean outside = false;
+				for (int sy = 0; sy < samples && !outside; sy++) {
+					long row = rows[py * samples + sy];
+					for (int sx = 0; sx < samples; sx++) {
+						long column = columns[px * samples + sx];
+						if (row < 0 || column < 0) {
+							outside = true;
+							break;
+						}
+						if (isWhite(column, row))
+							white++;
+					}
+				}
+				pixels[py * size + px] = outside ? OUTSIDE : shades[white];
+			}
+		}
+		return pixels;
+	}
+
+	private long classify(long pixel, long limit) {
+		if (pixel >= limit)
+			return -1;
+		long cell = pixel / this.cellPx;
+		return pixel % this.cellPx < this.blackPx ? cell * 2 : cell * 2 + 1;
+	}
+
+	// Wall bands carry the index of the cell after them: the band of line i is before cell i.
+	private boolean isWhite(long column, long row) {
+		int x = (int) (column >>> 1), y = (int) (row >>> 1);
+		boolean inColumn = (column & 1) != 0, inRow = (row & 1) != 0;
+		if (inColumn && inRow)
+			return true;
+		if (inRow) // Vertical wall at the left of cell x
+			return x != 0 && x != this.width && this.grid.isRightOpen(x - 1, y);
+		if (inColumn) // Horizontal wall above cell x
+			return y != 0 && y != this.height && this.grid.isDownOpen(x, y - 1);
+		return false;
+	}
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import net.smoofyuniverse.common.task.ProgressListener;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+import java.util.random.RandomGenerator;
+
+// Connects tiles in parallel then the passages between them.
+// Each tile and the stitching draw from their own RandomStreams, so a seed and a tile grid give the same maze with any pool.
+public class TiledGenerator {
+	// Cells per tile side in the grid chosen by of(Maze), whatever the parallelism
+	public static final int TILE_SIDE = 256;
+
+	public final Maze maze;
+	public final int tilesX, tilesY;
+
+	// Reused by the tiles connected in the calling thread
+	private IntRandomQueue queue;
+
+	public TiledGenerator(Maze maze, int tilesX, int tilesY) {
+		if (!maze.isCompact())
+			throw new IllegalArgumentException("maze");
+		if (tilesX <= 0 || tilesX > maze.width)
+			throw new IllegalArgumentException("tilesX");
+		if (tilesY <= 0 || tilesY > maze.height)
+			throw new IllegalArgumentException("tilesY");
+
+		this.maze = maze;
+		this.tilesX = tilesX;
+		this.tilesY = tilesY;
+	}
+
+	// The grid only depends on the size of the maze: the same seed gives the same maze on any machine.
+	public static TiledGenerator of(Maze maze) {
+		return new TiledGenerator(maze, tiles(maze.width), tiles(maze.height));
+	}
+
+	public static int tiles(int cells) {
+		return (int) ((cells + (long) TILE_SIDE - 1) / TILE_SIDE);
+	}
+
+	public void generate(long seed, double errorFactor) {
+		generate(seed, errorFactor, ForkJoinPool.commonPool());
+	}
+
+	// Tiles are connected in the calling thread when the pool is null.
+	// Each phase runs on all tiles before the next one, the stream of a tile is kept between phases.
+	public void generate(long seed, double errorFactor, ForkJoinPool pool) {
+		if (errorFactor < 0 || errorFactor > 1)
+			throw new IllegalArgumentException("errorFactor");
+
+		ProgressListener listener = this.maze.listener;
+		if (listener != null)
+			listener.setCancelled(false);
+
+		int tiles = this.tilesX * this.tilesY;
+		SplittableRandom[] randoms = new SplittableRandom[tiles];
+		long[] wasted = new long[tiles];
+		int errors = 0;
+		for (int t = 0; t < tiles; t++) {
+			randoms[t] = RandomStreams.of(seed, t);
+			int w = tileWidth(t), h = tileHeight(t);
+			errors += (int) ((w * h - w - h + 1) * errorFactor);
+		}
+
+		try (ProgressChannel progress = ProgressChannel.open(listener)) {
+			// Tiles update the store concurrently without marking it as dirty
+			this.maze.store.markDirty();
+
+			// Only the allocations of this thread are measured
+			PhaseTimer timer = PhaseTimer.start(this.maze.metrics, GenerationMetrics.SHUFFLE, this.maze.size, null);
+			progress.phase(this.maze.size);
+			forEachTile(pool, progress, t -> shuffleTile(t, randoms[t], progress));
+			timer.stop();
+
+			// The groups shared by concurrent tiles cannot count their operations
+			timer = PhaseTimer.start(this.maze.metrics, GenerationMetrics.CONNECT, this.maze.size, pool == null ? this.maze.groups : null);
+			progress.phase(this.maze.size);
+			forEachTile(pool, progress, t -> wasted[t] = connectTile(t, randoms[t], progress, pool == null));
+			timer.stop(sum(wasted));
+
+			if (errors != 0) {
+				Arrays.fill(wasted, 0);
+				timer = PhaseTimer.start(this.maze.metrics, GenerationMetrics.LOOPS, errors, null);
+				progress.phase(errors);
+				forEachTile(pool, progress, t -> wasted[t] = insertLoops(t, errorFactor, randoms[t], progress));
+				timer.stop(sum(wasted));
+			}
+
+			if (!progress.isCancelled()) {
+				timer = PhaseTimer.start(this.maze.metrics, GenerationMetrics.STITCH, this.maze.size, this.maze.groups);
+				stitch(RandomStreams.of(seed, RandomStreams.STITCH), errorFactor);
+				timer.stop();
+			}
+		}
+	}
+
+	private void forEachTile(ForkJoinPool pool, ProgressChannel progress, IntConsumer action) {
+		int tiles = this.tilesX * this.tilesY;
+		if (pool == null) {
+			for (int t = 0; t < tiles && !progress.isCancelled(); t++)
+				action.accept(t);
+		} else if (!progress.isCancelled()) {
+			ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[tiles];
+			for (int t = 0; t < tiles; t++) {
+				int tile = t;
+				tasks[t] = pool.submit(() -> action.accept(tile));
+			}
+			ParallelTasks.join(tasks);
+		}
+	}
+
+	private static long sum(long[] values) {
+		long sum = 0;
+		for (long v : values)
+			sum += v;
+		return sum;
+	}
+
+	private int boundX(int tile) {
+		return (int) ((long) tile * this.maze.width / this.tilesX);
+	}
+
+	private int boundY(int tile) {
+		return (int) ((long) tile * this.maze.height / this.tilesY);
+	}
+
+	private int origin(int tile) {
+		return boundY(tile / this.tilesX) * this.maze.width + boundX(tile % this.tilesX);
+	}
+
+	private int tileWidth(int tile) {
+		int tx = tile % this.tilesX;
+		return boundX(tx + 1) - boundX(tx);
+	}
+
+	private int tileHeight(int tile) {
+		int ty = tile / this.tilesX;
+		return boundY(ty + 1) - boundY(ty);
+	}
+
+	private void shuffleTile(int tile, SplittableRandom random, ProgressChannel progress) {
+		MazeStore store = this.maze.store;
+		int w = tileWidth(tile), n = w * tileHeight(tile);
+		int width = this.maze.width, origin = origin(tile);
+		for (int k = 0; k < n; k++)
+			store.shuffleCombinationWithin(origin + (k / w) * width + (k % w), random);
+		progress.add(n);
+	}
+
+	// Returns the number of cells drawn after all their directions had been tried.
+	private long connectTile(int tile, SplittableRandom random, ProgressChannel progress, boolean reuse) {
+		MazeStore store = this.maze.store;
+		int w = tileWidth(tile), h = tileHeight(tile), n = w * h;
+		int width = this.maze.width, origin = origin(tile);
+
+		int max = n - 1, connections = 0, pending = 0;
+		long wasted = 0;
+		IntRandomQueue queue;
+		if (reuse && this.queue != null && this.queue.capacity() == n) {
+			queue = this.queue;
+			queue.fill();
+			queue.setRandom(random);
+		} else {
+			queue = new IntRandomQueue(n, random);
+			if (reuse)
+				this.queue = queue;
+		}
+		while (connections < max) {
+			int k = queue.next(), x = k % w, y = k / w;
+			if (store.tryConnectWithin(origin + y * width + x, blocked(x, y, w, h))) {
+				connections++;
+				if (++pending == ProgressChannel.CHUNK) {
+					progress.add(pending);
+					pending = 0;
+					if (progress.isCancelled())
+						return wasted;
+				}
+			} else {
+				queue.remove();
+				wasted++;
+			}
+		}
+		progress.add(pending + 1);
+		return wasted;
+	}
+
+	private long insertLoops(int tile, double errorFactor, RandomGenerator random, ProgressChannel progress) {
+		int w = tileWidth(tile), h = tileHeight(tile);
+		int errors = (int) ((w * h - w - h + 1) * errorFactor);
+		return errors == 0 ? 0 : insertLoops(origin(tile), w, h, errors, random, progress);
+	}
+
+	// Opens closed walls of a perfect tile at random, as Maze.insertLoops does: the cost follows the errors and not the cells.
+	// Walls are identified by local edge ids: 2k for the right wall of the k-th cell of the tile, 2k + 1 for its down wall.
+	// Returns the number of draws that hit an open or border wall.
+	private long insertLoops(int origin, int w, int h, int errors, RandomGenerator random, ProgressChannel progress) {
+		MazeStore store = this.maze.store;
+		int closed = w * h - w - h + 1;
+		int edges = 2 * w * h;
+
+		if (errors <= closed / 2) {
+			// At least a quarter of the draws hit a wall that is still closed
+			int opened = 0;
+			long draws = 0;
+			while (opened < errors) {
+				long edge = edge(origin, w, h, random.nextInt(edges));
+				draws++;
+				if (edge >= 0 && !store.isOpen(edge)) {
+					store.openAtomically(edge);
+					if ((++opened & ProgressChannel.CHUNK_MASK) == 0) {
+						progress.add(ProgressChannel.CHUNK);
+						if (progress.isCancelled())
+							break;
+					}
+				}
+			}
+			progress.add(opened & ProgressChannel.CHUNK_MASK);
+			return draws - opened;
+		} else {
+			// Cheaper to draw the walls that stay closed and open all others
+			int kept = 0, keep = closed - errors;
+			long draws = 0;
+			long[] kepts = new long[(edges + 63) >>> 6];
+			while (kept < keep) {
+				int local = random.nextInt(edges);
+				long edge = edge(origin, w, h, local);
+				draws++;
+				if ((kepts[local >>> 6] & (1L << local)) == 0 && edge >= 0 && !store.isOpen(edge)) {
+					kepts[local >>> 6] |= 1L << local;
+					if ((++kept & ProgressChannel.CHUNK_MASK) == 0 && progress.isCancelled())
+						return draws - kept;
+				}
+			}
+
+			for (int local = 0; local < edges; local++) {
+				long edge = edge(origin, w, h, local);
+				if ((kepts[local >>> 6] & (1L << local)) == 0 && edge >= 0 && !store.isOpen(edge))
+					store.openAtomically(edge);
+			}
+			progress.add(errors);
+			return draws - kept;
+		}
+	}
+
+	// Edge id in the maze of a local edge id, -1 for the walls on the border of the tile
+	private long edge(int origin, int w, int h, int local) {
+		int k = local >>> 1, x = k % w, y = k / w;
+		if ((local & 1) == 0 ? x == w - 1 : y == h - 1)
+			return -1;
+		return 2L * (origin + y * this.maze.width + x) + (local & 1);
+	}
+
+	private static int blocked(int x, int y, int w, int h) {
+		int blocked = 0;
+		if (y == 0)
+			blocked |= 1 << Direction.UP.ordinal();
+		if (y == h - 1)
+			blocked |= 1 << Direction.DOWN.ordinal();
+		if (x == 0)
+			blocked |= 1 << Direction.LEFT.ordinal();
+		if (x == w - 1)
+			blocked |= 1 << Direction.RIGHT.ordinal();
+		return blocked;
+	}
+
+	private void stitch(RandomGenerator random, double errorFactor) {
+		MazeStore store = this.maze.store;
+		int width = this.maze.width, height = this.maze.height;
+
+		// Edges crossing a tile boundary, encoded as 2 * cell for a right edge and 2 * cell + 1 for a down edge
+		long[] edges = new long[(this.tilesX - 1) * height + (this.tilesY - 1) * width];
+		int count = 0;
+		for (int tx = 1; tx < this.tilesX; tx++) {
+			int x = boundX(tx) - 1;
+			for (int y = 0; y < height; y++)
+				edges[count++] = 2L * (y * width + x);
+		}
+		for (int ty = 1; ty < this.tilesY; ty++) {
+			int offset = (boundY(ty) - 1) * width;
+			for (int x = 0; x < width; x++)
+				edges[count++] = 2L * (offset + x) + 1;
+		}
+
+		for (int i = count - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			long e = edges[i];
+			edges[i] = edges[j];
+			edges[j] = e;
+		}
+
+		int rejected = 0;
+		for (int i = 0; i < count; i++) {
+			long e = edges[i];
+			int cell = (int) (e >>> 1);
+			boolean down = (e & 1) != 0;
+			if (store.union(cell, down ? cell + width : cell + 1))
+				store.open(e);
+			else
+				edges[rejected++] = e;
+		}
+
+		int errors = (int) (rejected * errorFactor);
+		for (int i = 0; i < errors; i++)
+			store.open(edges[i]);
+	}
+}
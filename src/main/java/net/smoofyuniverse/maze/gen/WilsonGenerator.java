@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.smoofyuniverse.maze.gen;
+
+import java.util.random.RandomGenerator;
+
+// Wilson: loop-erased random walks from each cell until they hit the maze, which gives an uniform spanning tree.
+public class WilsonGenerator extends AbstractMazeGenerator {
+
+	@Override
+	public Algorithm getAlgorithm() {
+		return Algorithm.WILSON;
+	}
+
+	@Override
+	public long memoryUsage(int width, int height) {
+		long size = (long) width * height;
+		return MazeStore.memoryUsage(size, false) + bitsetSize(size) + bitsetSize(2 * size);
+	}
+
+	@Override
+	protected void carve(MazeStore store, RandomGenerator random) {
+		int n = store.size;
+		long[] inMaze = new long[(n + 63) >>> 6];
+		// 2 bits per cell: last direction taken from the cell, overwriting it erases the loops
+		long[] exits = new long[(n + 31) >>> 5];
+		int done = 1;
+		long steps = 0;
+
+		set(inMaze, random.nextInt(n));
+
+		for (int origin = 0; origin < n; origin++) {
+			if (get(inMaze, origin))
+				continue;
+
+			int cell = origin;
+			while (!get(inMaze, cell)) {
+				int d, next;
+				do {
+					d = random.nextInt(4);
+					next = store.neighbour(cell, d);
+				} while (next < 0);
+
+				int shift = cell << 1;
+				exits[cell >>> 5] = (exits[cell >>> 5] & ~(3L << shift)) | ((long) d << shift);
+				cell = next;
+
+				// The first walks take about n log n steps before they reach the maze
+				if ((++steps & ProgressChannel.CHUNK_MASK) == 0 && isCancelled())
+					return;
+			}
+
+			cell = origin;
+			while (!get(inMaze, cell)) {
+				int d = (int) (exits[cell >>> 5] >>> (cell << 1)) & 3;
+				store.open(store.edge(cell, d));
+				set(inMaze, cell);
+				cell = store.neighbour(cell, d);
+				done++;
+			}
+
+			if (progress(done))
+				return;
+		}
+	}
+}
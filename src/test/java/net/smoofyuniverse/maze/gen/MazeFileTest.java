@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MazeFileTest {
+
+	@Test
+	void roundTrip() throws IOException {
+		Path file = Files.createTempFile("maze", ".maze");
+		try {
+			for (int[] size : new int[][]{{1, 1}, {2, 1}, {3, 1}, {5, 7}, {33, 31}, {300, 299}}) {
+				Maze maze = Mazes.tiled(size[0], size[1], 5, 0.3);
+				maze.save(file, 5, 0.3, Algorithm.TILED_KRUSKAL);
+				assertEquals(MazeFile.HEADER_SIZE + MazeFile.bitmapLength(maze.size), Files.size(file), "file size");
+
+				MazeFile mazeFile = MazeFile.open(file);
+				assertEquals(5, mazeFile.seed);
+				assertEquals(0.3, mazeFile.errorFactor);
+				assertEquals(Algorithm.TILED_KRUSKAL, mazeFile.algorithm);
+				Mazes.assertSamePassages(maze, mazeFile);
+				Mazes.assertSamePassages(maze, Maze.load(file));
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void pointMazeRoundTrip() throws IOException {
+		Path file = Files.createTempFile("maze", ".maze");
+		try {
+			Maze maze = new Maze(45, 17);
+			maze.fill();
+			maze.connectAll(new Random(9), 0.1);
+			maze.save(file, 9, 0.1, Algorithm.KRUSKAL);
+			Mazes.assertSamePassages(maze, MazeFile.open(file));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void streamedRoundTrip() throws IOException {
+		Path file = Files.createTempFile("maze", ".maze");
+		try {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				BitmapRowSink sink = MazeFile.createSink(channel, 501, 300, 9, 0, Algorithm.ELLER);
+				new StreamingMaze(501, 300).generate(new Random(9), 0, sink);
+				sink.finish();
+			}
+			MazeFile mazeFile = MazeFile.open(file);
+			assertEquals(Algorithm.ELLER, mazeFile.algorithm);
+			Mazes.assertPerfect(mazeFile);
+			Mazes.assertSamePassages(mazeFile, Maze.load(file));
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class Mazes {
+	private Mazes() {}
+
+	// Exactly size - 1 passages, none through the border, and every cell reachable.
+	static void assertPerfect(WallGrid grid) {
+		int width = grid.getWidth(), height = grid.getHeight(), size = width * height;
+		DisjointSet groups = new DisjointSet(size);
+		int passages = 0, components = size;
+		for (int i = 0; i < size; i++) {
+			if (grid.isRightOpen(i)) {
+				assertTrue(i % width != width - 1, "right passage through the border at " + i);
+				passages++;
+				if (groups.union(i, i + 1))
+					components--;
+			}
+			if (grid.isDownOpen(i)) {
+				assertTrue(i + width < size, "down passage through the border at " + i);
+				passages++;
+				if (groups.union(i, i + width))
+					components--;
+			}
+		}
+		assertEquals(size - 1, passages, "passages");
+		assertEquals(1, components, "components");
+	}
+
+	static void assertSamePassages(WallGrid expected, WallGrid actual) {
+		assertEquals(expected.getWidth(), actual.getWidth(), "width");
+		assertEquals(expected.getHeight(), actual.getHeight(), "height");
+		int size = expected.getWidth() * expected.getHeight();
+		for (int i = 0; i < size; i++) {
+			assertEquals(expected.isRightOpen(i), actual.isRightOpen(i), "right passage of " + i);
+			assertEquals(expected.isDownOpen(i), actual.isDownOpen(i), "down passage of " + i);
+		}
+	}
+
+	static Maze tiled(int width, int height, long seed, double errorFactor) {
+		Maze maze = new Maze(width, height, true);
+		maze.fill();
+		TiledGenerator.of(maze).generate(seed, errorFactor, null);
+		return maze;
+	}
+}
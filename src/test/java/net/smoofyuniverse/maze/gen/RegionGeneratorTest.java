@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegionGeneratorTest {
+
+	@Test
+	void rectanglesKeepTheMazePerfect() {
+		SplittableRandom random = new SplittableRandom(1);
+		for (int i = 0; i < 60; i++) {
+			int width = 1 + random.nextInt(60), height = 1 + random.nextInt(60);
+			Maze maze = Mazes.tiled(width, height, i, 0);
+			Maze before = Mazes.tiled(width, height, i, 0);
+
+			int x = random.nextInt(width), y = random.nextInt(height);
+			int w = 1 + random.nextInt(width - x), h = 1 + random.nextInt(height - y);
+			new RegionGenerator(maze).generate(x, y, w, h, i + 1, 0);
+			Mazes.assertPerfect(maze);
+
+			BitSet region = new BitSet();
+			for (int dy = 0; dy < h; dy++)
+				region.set((y + dy) * width + x, (y + dy) * width + x + w);
+			assertOutsideOnlyCloses(before, maze, region);
+		}
+	}
+
+	@Test
+	void masksKeepTheMazePerfect() {
+		SplittableRandom random = new SplittableRandom(2);
+		for (int i = 0; i < 60; i++) {
+			Maze maze = Mazes.tiled(40, 30, i, 0);
+			Maze before = Mazes.tiled(40, 30, i, 0);
+
+			BitSet mask = new BitSet();
+			for (int c = 0; c < maze.size; c++) {
+				if (random.nextInt(3) == 0)
+					mask.set(c);
+			}
+			new RegionGenerator(maze).generate(mask, i + 1, 0);
+			Mazes.assertPerfect(maze);
+			assertOutsideOnlyCloses(before, maze, mask);
+		}
+	}
+
+	@Test
+	void partialImageMatchesFullImage() {
+		Maze maze = Mazes.tiled(90, 70, 4, 0);
+		BufferedImage image = maze.createImage(3, 1);
+		new RegionGenerator(maze).generate(20, 0, 35, 41, 9, 0);
+		maze.createImage(3, 1, image, 20, 0, 35, 41);
+
+		BufferedImage expected = maze.createImage(3, 1);
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++)
+				assertEquals(expected.getRGB(x, y), image.getRGB(x, y), "pixel " + x + "," + y);
+		}
+	}
+
+	@Test
+	void sameSeedSameRegion() {
+		Maze a = Mazes.tiled(50, 50, 6, 0), b = Mazes.tiled(50, 50, 6, 0);
+		new RegionGenerator(a).generate(10, 10, 20, 20, 3, 0.2);
+		new RegionGenerator(b).generate(10, 10, 20, 20, 3, 0.2);
+		Mazes.assertSamePassages(a, b);
+	}
+
+	// Walls with no cell of the region on either side are unchanged, walls between the region and the outside may only close.
+	private static void assertOutsideOnlyCloses(Maze before, Maze after, BitSet region) {
+		int width = before.width;
+		for (int i = 0; i < before.size; i++) {
+			if (i % width != width - 1)
+				assertWall(before.isRightOpen(i), after.isRightOpen(i), region.get(i), region.get(i + 1), "right wall of " + i);
+			if (i + width < before.size)
+				assertWall(before.isDownOpen(i), after.isDownOpen(i), region.get(i), region.get(i + width), "down wall of " + i);
+		}
+	}
+
+	private static void assertWall(boolean before, boolean after, boolean a, boolean b, String name) {
+		if (!a && !b)
+			assertEquals(before, after, name);
+		else if (a != b)
+			assertTrue(before || !after, name + " opened");
+	}
+}
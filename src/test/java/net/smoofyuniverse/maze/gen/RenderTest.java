@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RenderTest {
+	private static final int[][] PIXELS = {{1, 0}, {1, 1}, {3, 1}, {4, 2}, {5, 3}};
+
+	@Test
+	void rowsDrawTheSameImage() throws IOException {
+		Maze maze = Mazes.tiled(71, 43, 3, 0.1);
+		for (int[] px : PIXELS) {
+			ImageRowSink sink = new ImageRowSink(maze.width, maze.height, px[0], px[1]);
+			maze.writeRows(sink);
+			assertArrayEquals(data(maze.createImage(px[0], px[1])), data(sink.getImage()));
+			assertArrayEquals(data(maze.createImage(px[0], px[1])), data(maze.createImageParallel(px[0], px[1])));
+		}
+	}
+
+	@Test
+	void pngHasThePixelsOfTheImage() throws IOException {
+		Maze maze = Mazes.tiled(71, 43, 3, 0.1);
+		for (int[] px : PIXELS) {
+			BufferedImage expected = maze.createImage(px[0], px[1]);
+
+			ByteArrayOutputStream rows = new ByteArrayOutputStream();
+			try (PngRowSink png = new PngRowSink(Channels.newChannel(rows), maze.width, maze.height, px[0], px[1])) {
+				maze.writeRows(png);
+				png.finish();
+			}
+			assertSamePixels(expected, ImageIO.read(new ByteArrayInputStream(rows.toByteArray())));
+
+			ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+			try (PngEncoder encoder = new PngEncoder()) {
+				encoder.write(expected, encoded);
+			}
+			assertSamePixels(expected, ImageIO.read(new ByteArrayInputStream(encoded.toByteArray())));
+		}
+	}
+
+	@Test
+	void imageFileHasThePixelsOfTheImage() throws IOException {
+		Maze maze = Mazes.tiled(40, 90, 8, 0);
+		Path file = Files.createTempFile("maze", ".png");
+		try {
+			maze.writeImage(file, 2, 1);
+			assertSamePixels(maze.createImage(2, 1), ImageIO.read(file.toFile()));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static byte[] data(BufferedImage image) {
+		return ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+	}
+
+	private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+		assertEquals(expected.getWidth(), actual.getWidth(), "width");
+		assertEquals(expected.getHeight(), actual.getHeight(), "height");
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++)
+				assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "pixel " + x + "," + y);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2017-2026 Hugo Dupanloup (Yeregorix)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.smoofyuniverse.maze.gen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TiledGeneratorTest {
+	private static final int[][] SIZES = {{1, 1}, {1, 70}, {70, 1}, {37, 23}, {300, 200}};
+
+	@Test
+	void perfectInCallingThread() {
+		for (int[] size : SIZES) {
+			for (int tiles = 1; tiles <= 3; tiles++) {
+				Maze maze = new Maze(size[0], size[1], true);
+				maze.fill();
+				new TiledGenerator(maze, Math.min(tiles, size[0]), Math.min(tiles, size[1])).generate(7, 0, null);
+				Mazes.assertPerfect(maze);
+			}
+		}
+	}
+
+	@Test
+	void perfectOnPool() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int[] size : SIZES) {
+				Maze maze = new Maze(size[0], size[1], true);
+				maze.fill();
+				new TiledGenerator(maze, Math.min(3, size[0]), Math.min(2, size[1])).generate(7, 0, pool);
+				Mazes.assertPerfect(maze);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void sameMazeWithAnyThreadCount() {
+		for (double errorFactor : new double[]{0, 0.1, 0.8}) {
+			Maze expected = Mazes.tiled(600, 520, 42, errorFactor);
+			for (int threads : new int[]{1, 2, 5}) {
+				ForkJoinPool pool = new ForkJoinPool(threads);
+				try {
+					Maze maze = new Maze(600, 520, true);
+					maze.fill();
+					TiledGenerator.of(maze).generate(42, errorFactor, pool);
+					Mazes.assertSamePassages(expected, maze);
+				} finally {
+					pool.shutdown();
+				}
+			}
+		}
+	}
+
+	@Test
+	void seededEntryPointsAgree() {
+		Maze expected = Mazes.tiled(300, 280, 11, 0.2);
+
+		Maze compact = new Maze(300, 280, true);
+		compact.fill();
+		compact.connectAll(11, 0.2);
+		Mazes.assertSamePassages(expected, compact);
+
+		Maze points = new Maze(300, 280);
+		points.regenerate(3, 0.2);
+		points.regenerate(11, 0.2);
+		Mazes.assertSamePassages(expected, points);
+
+		Maze planned = new Maze(300, 280, true);
+		planned.fill();
+		GenerationPlan.of(300, 280, 1, 1, 0.2, GenerationPlan.Format.BINARY).generate(planned, 11);
+		Mazes.assertSamePassages(expected, planned);
+	}
+
+	@Test
+	void loopsOnlyOpenWalls() {
+		Maze perfect = Mazes.tiled(300, 200, 5, 0), loops = Mazes.tiled(300, 200, 5, 0.3);
+		int added = 0;
+		for (int i = 0; i < perfect.size; i++) {
+			assertTrue(!perfect.isRightOpen(i) || loops.isRightOpen(i), "closed right passage of " + i);
+			assertTrue(!perfect.isDownOpen(i) || loops.isDownOpen(i), "closed down passage of " + i);
+			if (loops.isRightOpen(i) != perfect.isRightOpen(i))
+				added++;
+			if (loops.isDownOpen(i) != perfect.isDownOpen(i))
+				added++;
+		}
+		assertTrue(added > 0, "no loop");
+	}
+}